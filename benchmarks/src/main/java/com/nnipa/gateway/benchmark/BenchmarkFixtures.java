@@ -0,0 +1,111 @@
+package com.nnipa.gateway.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.util.JwtKeyRing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shared inputs mirroring the defaults in application.yml
+ */
+final class BenchmarkFixtures {
+
+    static final String JWT_SECRET = "dGhpcyBpcyBhIDUxMi1iaXQgc2VjcmV0IGtleSBmb3IgSFM1MTIgand0IHNpZ25pbmcgYWxnb3JpdGhtIGVuY29kZWQgaW4gYmFzZTY0IGZvcm1hdCB0aGF0IHlvdSBjYW4gdXNlIGZvciBzZWN1cmUgdG9rZW4=";
+    static final String JWT_ISSUER = "https://nnipa.cloud";
+
+    static final List<String> PUBLIC_PATHS = List.of(
+            "/api/v1/auth/register",
+            "/api/v1/auth/login",
+            "/api/v1/auth/refresh",
+            "/api/v1/auth/forgot-password",
+            "/api/v1/auth/reset-password",
+            "/actuator/health",
+            "/actuator/prometheus",
+            "/swagger-ui/**",
+            "/v3/api-docs/**",
+            "/auth-docs/**",
+            "/auth-service/**",
+            "/authz-docs/**",
+            "/authz-service/**",
+            "/authz-health/**",
+            "/tenant-docs/**",
+            "/tenant-service/**",
+            "/tenant-health/**",
+            "/tenant-management/**",
+            "/user-docs/**",
+            "/user-service/**",
+            "/user-health/**"
+    );
+
+    /**
+     * Shared by every exchange; MockServerWebExchange creates these per exchange, which costs more than most filters
+     */
+    private static final ServerCodecConfigurer CODECS = ServerCodecConfigurer.create();
+    private static final DefaultWebSessionManager SESSIONS = new DefaultWebSessionManager();
+    private static final AcceptHeaderLocaleContextResolver LOCALES = new AcceptHeaderLocaleContextResolver();
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A fresh exchange for the request, as cheap to build as the request itself
+     */
+    static ServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return new DefaultServerWebExchange(request.build(), new MockServerHttpResponse(), SESSIONS, CODECS, LOCALES);
+    }
+
+    static ApiGatewayProperties properties() {
+        ApiGatewayProperties properties = new ApiGatewayProperties();
+        properties.getSecurity().setJwtSecret(JWT_SECRET);
+        properties.getSecurity().setJwtIssuer(JWT_ISSUER);
+        properties.getSecurity().setPublicPaths(PUBLIC_PATHS);
+        properties.getRateLimiting().setCacheSize(100_000);
+        properties.getAccessLog().setEnabled(false);
+        return properties;
+    }
+
+    static JwtKeyRing keyRing(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        return new JwtKeyRing(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    /**
+     * The configured public paths padded with synthetic entries up to the requested size
+     */
+    static List<String> publicPaths(int size) {
+        List<String> paths = new ArrayList<>(PUBLIC_PATHS);
+        for (int i = 0; paths.size() < size; i++) {
+            paths.add(i % 2 == 0 ? "/internal/service-" + i + "/**" : "/api/v1/public/resource-" + i);
+        }
+        return paths;
+    }
+
+    static String token() {
+        return Jwts.builder()
+                .issuer(JWT_ISSUER)
+                .subject("benchmark")
+                .claim("userId", UUID.randomUUID().toString())
+                .claim("tenantId", UUID.randomUUID().toString())
+                .claim("correlationId", UUID.randomUUID().toString())
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
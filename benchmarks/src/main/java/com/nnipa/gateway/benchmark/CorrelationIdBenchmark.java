@@ -0,0 +1,51 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.util.CorrelationIdUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Correlation ID generation and validation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrelationIdBenchmark {
+
+    private final String validId = CorrelationIdUtils.generateCorrelationId();
+    private final String invalidId = "not-a-correlation-id";
+
+    @Benchmark
+    public String generate() {
+        return CorrelationIdUtils.generateCorrelationId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateContended() {
+        return CorrelationIdUtils.generateCorrelationId();
+    }
+
+    @Benchmark
+    public boolean validateAccepted() {
+        return CorrelationIdUtils.isValid(validId);
+    }
+
+    @Benchmark
+    public boolean validateRejected() {
+        return CorrelationIdUtils.isValid(invalidId);
+    }
+}
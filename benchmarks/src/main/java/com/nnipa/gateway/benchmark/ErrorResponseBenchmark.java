@@ -0,0 +1,61 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.exception.ErrorResponseWriter;
+import com.nnipa.gateway.exception.GlobalErrorWebExceptionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing error responses through the global error handler and straight from a template
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private GlobalErrorWebExceptionHandler handler;
+    private ResponseStatusException error;
+    private ErrorResponseWriter.Template rejection;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalErrorWebExceptionHandler();
+        error = new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token");
+        rejection = ErrorResponseWriter.Template.of(HttpStatus.UNAUTHORIZED, "Invalid token");
+    }
+
+    @Benchmark
+    public ServerWebExchange handleError() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange(
+                MockServerHttpRequest.get("/api/v1/tenants/settings")
+                        .header("X-Correlation-Id", "0b6c5a4e-8f1d-4c1b-9a3e-2d7f6e5c4b3a"));
+        handler.handle(exchange, error).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange writeRejection() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange(
+                MockServerHttpRequest.get("/api/v1/tenants/settings")
+                        .header("X-Correlation-Id", "0b6c5a4e-8f1d-4c1b-9a3e-2d7f6e5c4b3a"));
+        ErrorResponseWriter.write(exchange, rejection).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,136 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.filter.AuthenticationFilter;
+import com.nnipa.gateway.filter.CorrelationIdFilter;
+import com.nnipa.gateway.filter.HeaderMutationFilter;
+import com.nnipa.gateway.filter.LoggingFilter;
+import com.nnipa.gateway.filter.MetricsFilter;
+import com.nnipa.gateway.filter.RateLimiterGatewayFilterFactory;
+import com.nnipa.gateway.filter.RequestTransformationFilter;
+import com.nnipa.gateway.filter.ResponseTransformationFilter;
+import com.nnipa.gateway.filter.UpstreamTimingFilter;
+import com.nnipa.gateway.logging.AccessLogWriter;
+import com.nnipa.gateway.metrics.GatewayMetricsCollector;
+import com.nnipa.gateway.service.DistributedRateLimitService;
+import com.nnipa.gateway.service.InMemoryProxyManager;
+import com.nnipa.gateway.service.MetricsService;
+import com.nnipa.gateway.service.RateLimitService;
+import com.nnipa.gateway.service.TokenRevocationService;
+import com.nnipa.gateway.util.JwtUtils;
+import com.nnipa.gateway.util.PublicPathMatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through the gateway's own filters, in production
+ * order, against a mock exchange; the upstream call is replaced by a no-op
+ * that sets a 200 status.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterChainBenchmark {
+
+    private static final int LIMIT = 1_000_000_000;
+
+    private List<GatewayFilter> filters;
+    private Route route;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        ApiGatewayProperties properties = BenchmarkFixtures.properties();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        JwtUtils jwtUtils = new JwtUtils(BenchmarkFixtures.keyRing(properties, meterRegistry),
+                BenchmarkFixtures.JWT_ISSUER, 10_000, Duration.ofMinutes(15), meterRegistry);
+        RateLimitService rateLimitService = new RateLimitService(properties);
+        DistributedRateLimitService distributedRateLimitService = new DistributedRateLimitService(
+                new InMemoryProxyManager(10_000, Duration.ofMinutes(10)), properties);
+        MetricsService metricsService = new MetricsService(new GatewayMetricsCollector(meterRegistry, properties));
+
+        RateLimiterGatewayFilterFactory.Config rateLimit = new RateLimiterGatewayFilterFactory.Config();
+        rateLimit.setRequestsPerSecond(LIMIT);
+        rateLimit.setBurstCapacity(LIMIT);
+
+        filters = List.of(
+                adapt(new CorrelationIdFilter()),
+                adapt(new LoggingFilter(new AccessLogWriter(properties, meterRegistry))),
+                adapt(new MetricsFilter(metricsService)),
+                new RateLimiterGatewayFilterFactory(rateLimitService, distributedRateLimitService).apply(rateLimit),
+                new AuthenticationFilter(jwtUtils, new PublicPathMatcher(properties),
+                        new TokenRevocationService(properties, meterRegistry))
+                        .apply(new AuthenticationFilter.Config()),
+                adapt(new RequestTransformationFilter()),
+                adapt(new HeaderMutationFilter()),
+                adapt(new UpstreamTimingFilter()),
+                adapt(new ResponseTransformationFilter())
+        );
+
+        route = Route.async()
+                .id("tenant-service")
+                .uri("http://localhost:4001")
+                .predicate(exchange -> true)
+                .build();
+        authorization = "Bearer " + BenchmarkFixtures.token();
+    }
+
+    @Benchmark
+    public ServerWebExchange authenticatedRequest() {
+        ServerWebExchange exchange = BenchmarkFixtures.exchange(
+                MockServerHttpRequest.get("/api/v1/tenants/settings")
+                        .header(HttpHeaders.AUTHORIZATION, authorization)
+                        .header("X-Forwarded-For", "203.0.113.7"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+
+        new Chain(filters, 0).filter(exchange).block();
+        return exchange;
+    }
+
+    private static GatewayFilter adapt(GlobalFilter filter) {
+        return filter::filter;
+    }
+
+    /**
+     * Minimal stand-in for the gateway's internal filter chain
+     */
+    private record Chain(List<GatewayFilter> filters, int index) implements GatewayFilterChain {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            if (index == filters.size()) {
+                exchange.getResponse().setStatusCode(HttpStatus.OK);
+                return Mono.empty();
+            }
+            return filters.get(index).filter(exchange, new Chain(filters, index + 1));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.model.VerifiedPrincipal;
+import com.nnipa.gateway.util.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT verification: full HMAC parse versus the verified-principal cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        jwtUtils = new JwtUtils(BenchmarkFixtures.keyRing(BenchmarkFixtures.properties(), meterRegistry),
+                BenchmarkFixtures.JWT_ISSUER, 10_000, Duration.ofMinutes(15), meterRegistry);
+        token = BenchmarkFixtures.token();
+    }
+
+    @Benchmark
+    public Claims validateUncached() {
+        return jwtUtils.validateAndGetClaims(token);
+    }
+
+    @Benchmark
+    public VerifiedPrincipal verifyCached() {
+        return jwtUtils.verify(token);
+    }
+}
@@ -0,0 +1,65 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.util.PublicPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public path matching as the pattern list grows
+ * The trie should stay flat across sizes; the per-request regex baseline
+ * (the previous implementation) grows linearly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicPathBenchmark {
+
+    @Param({"21", "100", "500"})
+    public int patterns;
+
+    private PublicPathMatcher matcher;
+    private List<String> publicPaths;
+
+    private final String publicPath = "/tenant-docs/swagger-ui/index.html";
+    private final String protectedPath = "/api/v1/tenants/6f1c7a52-2b7e-4f0e-9a55-1c3f3e1a9b10/settings";
+
+    @Setup
+    public void setUp() {
+        publicPaths = BenchmarkFixtures.publicPaths(patterns);
+        ApiGatewayProperties properties = BenchmarkFixtures.properties();
+        properties.getSecurity().setPublicPaths(publicPaths);
+        matcher = new PublicPathMatcher(properties);
+    }
+
+    @Benchmark
+    public boolean trieProtectedPath() {
+        return matcher.isPublicPath(protectedPath);
+    }
+
+    @Benchmark
+    public boolean triePublicPath() {
+        return matcher.isPublicPath(publicPath);
+    }
+
+    @Benchmark
+    public boolean regexProtectedPath() {
+        return publicPaths.stream()
+                .anyMatch(pattern -> protectedPath.matches(pattern.replace("**", ".*")));
+    }
+}
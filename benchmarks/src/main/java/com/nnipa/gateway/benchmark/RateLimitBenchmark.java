@@ -0,0 +1,66 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.model.RateLimitKey;
+import com.nnipa.gateway.service.RateLimitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limit decisions from several threads, on one hot key and on distinct keys
+ * Limits are set high enough that every request is admitted, so only the
+ * bucket store and the token accounting are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+
+    private static final int LIMIT = 1_000_000_000;
+
+    private RateLimitService rateLimitService;
+    private RateLimitKey sharedKey;
+
+    @Setup
+    public void setUp() {
+        rateLimitService = new RateLimitService(BenchmarkFixtures.properties());
+        sharedKey = RateLimitKey.tenant("tenant-service", "6f1c7a52-2b7e-4f0e-9a55-1c3f3e1a9b10");
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        private RateLimitKey key;
+
+        @Setup
+        public void setUp() {
+            key = RateLimitKey.ip("tenant-service", "10.0.0." + NEXT.incrementAndGet());
+        }
+    }
+
+    @Benchmark
+    public boolean contendedKey() {
+        return rateLimitService.allowRequest(sharedKey, LIMIT, LIMIT);
+    }
+
+    @Benchmark
+    public boolean perThreadKey(ThreadKey threadKey) {
+        return rateLimitService.allowRequest(threadKey.key, LIMIT, LIMIT);
+    }
+}
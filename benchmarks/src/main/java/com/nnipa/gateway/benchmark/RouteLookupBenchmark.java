@@ -0,0 +1,114 @@
+package com.nnipa.gateway.benchmark;
+
+import com.nnipa.gateway.service.RouteIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route lookup as the route table grows
+ * The index should stay flat across sizes; the linear baseline (SCG's
+ * RoutePredicateHandlerMapping, every predicate in order) grows with the
+ * number of routes, worst for a request matching the last route or none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"30", "300", "3000"})
+    public int routes;
+
+    private List<Route> routeList;
+    private RouteIndex index;
+    // Lookups only overwrite the predicate route attribute, so one exchange per path serves every call
+    private ServerWebExchange lastRouteExchange;
+    private ServerWebExchange unmatchedExchange;
+
+    @Setup
+    public void setUp() {
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        routeList = new ArrayList<>(routes);
+        Map<String, List<String>> patterns = new HashMap<>();
+        for (int i = 0; i < routes; i++) {
+            // A mix of prefix, capture and exact routes, like the ones in application.yml
+            String pattern = switch (i % 3) {
+                case 0 -> "/api/v1/service-" + i + "/**";
+                case 1 -> "/api/v1/service-" + i + "/{id}/items";
+                default -> "/api/v1/service-" + i + "/status";
+            };
+            PathPattern parsed = parser.parse(pattern);
+            String id = "route-" + i;
+            routeList.add(Route.async()
+                    .id(id)
+                    .uri("http://localhost:" + (8000 + i % 100))
+                    .predicate(exchange -> parsed.matches(exchange.getRequest().getPath().pathWithinApplication()))
+                    .build());
+            patterns.put(id, List.of(pattern));
+        }
+        index = RouteIndex.build(routeList, patterns);
+
+        int last = routes - 1;
+        String lastRoutePath = switch (last % 3) {
+            case 0 -> "/api/v1/service-" + last + "/orders/42";
+            case 1 -> "/api/v1/service-" + last + "/42/items";
+            default -> "/api/v1/service-" + last + "/status";
+        };
+        lastRouteExchange = BenchmarkFixtures.exchange(MockServerHttpRequest.get(lastRoutePath));
+        unmatchedExchange = BenchmarkFixtures.exchange(MockServerHttpRequest.get("/api/v1/unknown-service/orders/42"));
+    }
+
+    @Benchmark
+    public Route indexLastRoute() {
+        return index.lookup(lastRouteExchange).block();
+    }
+
+    @Benchmark
+    public Route indexNoMatch() {
+        return index.lookup(unmatchedExchange).block();
+    }
+
+    @Benchmark
+    public Route linearLastRoute() {
+        return linearLookup(lastRouteExchange).block();
+    }
+
+    @Benchmark
+    public Route linearNoMatch() {
+        return linearLookup(unmatchedExchange).block();
+    }
+
+    private Mono<Route> linearLookup(ServerWebExchange exchange) {
+        return Flux.fromIterable(routeList)
+                .concatMap(route -> Mono.just(route).filterWhen(candidate -> {
+                    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR, candidate.getId());
+                    return candidate.getPredicate().apply(exchange);
+                }))
+                .next();
+    }
+}
@@ -2,39 +2,77 @@ package com.nnipa.gateway.config;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.netty.http.HttpProtocol;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Data
-@Component
 @ConfigurationProperties(prefix = "api-gateway")
 public class ApiGatewayProperties {
 
     private Security security = new Security();
     private RateLimiting rateLimiting = new RateLimiting();
     private Correlation correlation = new Correlation();
+    private Metrics metrics = new Metrics();
+    private Health health = new Health();
+    private AccessLog accessLog = new AccessLog();
+    private ResponseCache responseCache = new ResponseCache();
+    private Coalescing coalescing = new Coalescing();
+    private Upstream upstream = new Upstream();
+    private LoadBalancing loadBalancing = new LoadBalancing();
+    private Hedging hedging = new Hedging();
+    private Retry retry = new Retry();
+    private Compression compression = new Compression();
+    private Authorization authorization = new Authorization();
+    private Revocation revocation = new Revocation();
+    private RouteTable routeTable = new RouteTable();
 
     @Data
     public static class Security {
         private String jwtSecret;
         private String jwtIssuer;
         private List<String> publicPaths;
+        private long claimsCacheSize = 10000;
+        private Duration claimsCacheMaxTtl = Duration.ofMinutes(15);
+        private List<SigningKey> keys = new ArrayList<>();
+        private String jwksFile;
+        private Duration keyRefreshInterval = Duration.ofSeconds(30);
+
+        @Data
+        public static class SigningKey {
+            private String kid;
+            private String algorithm = "HS256";
+            private String secret;
+            private String publicKey;
+        }
     }
 
     @Data
     public static class RateLimiting {
         private boolean enabled = true;
         private DefaultLimits defaultLimits = new DefaultLimits();
+        private Distributed distributed = new Distributed();
         private boolean perTenantEnabled = true;
         private int cacheSize = 10000;
+        private Duration idleTimeout = Duration.ofMinutes(10);
 
         @Data
         public static class DefaultLimits {
             private int requestsPerSecond = 100;
             private int burstCapacity = 200;
         }
+
+        @Data
+        public static class Distributed {
+            private int leaseTokens = 10;
+            private Duration leaseDuration = Duration.ofMillis(250);
+        }
     }
 
     @Data
@@ -42,4 +80,137 @@ public class ApiGatewayProperties {
         private String headerName = "X-Correlation-Id";
         private boolean generateIfMissing = true;
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class Metrics {
+        private boolean percentileHistogram = true;
+        private List<Double> percentiles = List.of();
+        private Duration minimumExpectedDuration = Duration.ofMillis(1);
+        private Duration maximumExpectedDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Health {
+        private Duration refreshInterval = Duration.ofSeconds(15);
+        private Duration timeout = Duration.ofSeconds(2);
+        private String defaultPath = "/actuator/health";
+    }
+
+    @Data
+    public static class AccessLog {
+        private boolean enabled = true;
+        private String file = "logs/access.log";
+        private int bufferSize = 8192;
+        private int batchSize = 256;
+        private Duration flushInterval = Duration.ofMillis(200);
+        private double successSampleRate = 1.0;
+        private DataSize maxFileSize = DataSize.ofMegabytes(50);
+        private int maxHistory = 10;
+    }
+
+    @Data
+    public static class ResponseCache {
+        private boolean enabled = true;
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+        private Duration defaultTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Coalescing {
+        private Duration timeout = Duration.ofSeconds(5);
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+    }
+
+    @Data
+    public static class Upstream {
+        private List<HttpProtocol> protocols = List.of(HttpProtocol.HTTP11);
+        private Pool pool = new Pool();
+        private Map<String, Pool> routes = new HashMap<>();
+
+        @Data
+        public static class Pool {
+            private int maxConnections = 500;
+            private int pendingAcquireMaxCount = 1000;
+            private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+            private Duration maxIdleTime = Duration.ofSeconds(30);
+            private Duration maxLifeTime = Duration.ofMinutes(5);
+            private Duration evictionInterval = Duration.ofSeconds(10);
+            private LeasingStrategy leasingStrategy = LeasingStrategy.LIFO;
+        }
+
+        public enum LeasingStrategy {
+            FIFO, LIFO
+        }
+    }
+
+    @Data
+    public static class LoadBalancing {
+        private Map<String, ServiceDefinition> services = new HashMap<>();
+        private Duration latencyDecay = Duration.ofSeconds(10);
+        private int failureThreshold = 3;
+        private Duration probeInterval = Duration.ofSeconds(5);
+        private Duration probeTimeout = Duration.ofSeconds(1);
+
+        @Data
+        public static class ServiceDefinition {
+            private List<URI> instances = new ArrayList<>();
+            private String healthPath = "/actuator/health";
+        }
+    }
+
+    @Data
+    public static class Hedging {
+        private double budgetRatio = 0.1;
+        private int budgetBurst = 10;
+        private Duration minDelay = Duration.ofMillis(10);
+        private int minSamples = 50;
+    }
+
+    @Data
+    public static class Retry {
+        private double budgetRatio = 0.1;
+        private int budgetBurst = 10;
+    }
+
+    @Data
+    public static class Compression {
+        private boolean enabled = true;
+        private DataSize minSize = DataSize.ofKilobytes(1);
+        private int level = 6;
+        private List<String> excludedContentTypes = new ArrayList<>(List.of(
+                "image/*", "video/*", "audio/*", "font/woff", "font/woff2", "text/event-stream",
+                "application/zip", "application/gzip", "application/x-gzip", "application/zstd",
+                "application/octet-stream", "application/pdf"));
+    }
+
+    @Data
+    public static class Authorization {
+        private String service = "authorization-service";
+        private String checkPath = "/authz/api/v1/authz/decisions";
+        private Duration timeout = Duration.ofMillis(500);
+        private Duration allowTtl = Duration.ofSeconds(60);
+        private Duration denyTtl = Duration.ofSeconds(10);
+        private long cacheSize = 100_000;
+        private List<String> prefetchPermissions = new ArrayList<>();
+        private String invalidationToken;
+    }
+
+    @Data
+    public static class Revocation {
+        private boolean enabled = true;
+        private long expectedEntries = 100_000;
+        private double falsePositiveRate = 0.001;
+        private String file;
+        private Duration refreshInterval = Duration.ofSeconds(10);
+        private Duration purgeInterval = Duration.ofMinutes(1);
+        private Duration defaultTtl = Duration.ofHours(24);
+        private String pushToken;
+    }
+
+    @Data
+    public static class RouteTable {
+        private String file;
+        private Duration reloadDelay = Duration.ofMillis(250);
+    }
+}
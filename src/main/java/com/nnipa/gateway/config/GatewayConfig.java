@@ -4,10 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nnipa.gateway.service.RateLimitService;
 import com.nnipa.gateway.util.JwtUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import reactor.core.publisher.Mono;
 
 /**
@@ -49,4 +54,16 @@ public class GatewayConfig {
             return Mono.just("ip:" + ip);
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Route lookup through the path index; replaces SCG's linear RoutePredicateHandlerMapping
+     */
+    @Bean
+    public IndexedRoutePredicateHandlerMapping indexedRoutePredicateHandlerMapping(
+            FilteringWebHandler webHandler, RouteLocator routeLocator,
+            RouteDefinitionLocator routeDefinitionLocator,
+            GlobalCorsProperties globalCorsProperties, Environment environment) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, routeDefinitionLocator,
+                globalCorsProperties, environment);
+    }
+}
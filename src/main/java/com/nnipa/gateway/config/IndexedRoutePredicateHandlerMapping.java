@@ -0,0 +1,101 @@
+package com.nnipa.gateway.config;
+
+import com.nnipa.gateway.service.RouteIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Route lookup through a RouteIndex instead of trying every route's predicate
+ * The index is rebuilt from the route locator and the route definitions'
+ * Path predicates each time the route table is refreshed, and replaced in a
+ * single swap. Until the first build, and if a build fails, lookups fall
+ * back to SCG's linear evaluation.
+ */
+@Slf4j
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+
+    private volatile RouteIndex index;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               RouteDefinitionLocator routeDefinitionLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        Mono.zip(routeLocator.getRoutes().collectList(),
+                        routeDefinitionLocator.getRouteDefinitions().collectMap(RouteDefinition::getId, this::pathPatterns))
+                .map(tuple -> RouteIndex.build(tuple.getT1(), tuple.getT2()))
+                .subscribe(built -> {
+                    index = built;
+                    log.info("Route index rebuilt: {} path patterns indexed, {} routes evaluated on every request",
+                            built.getIndexedPatterns(), built.getUnindexedRoutes());
+                }, e -> {
+                    // Linear lookup is slower but always correct
+                    index = null;
+                    log.error("Could not build the route index, falling back to linear lookup", e);
+                });
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        RouteIndex current = index;
+        if (current == null) {
+            return super.lookupRoute(exchange);
+        }
+        return current.lookup(exchange)
+                .map(route -> {
+                    validateRoute(route, exchange);
+                    return route;
+                });
+    }
+
+    /**
+     * Patterns of the definition's Path predicates, or none if any of them is not a plain absolute path
+     * An empty list leaves the route to be evaluated on every request.
+     */
+    private List<String> pathPatterns(RouteDefinition definition) {
+        List<String> patterns = new ArrayList<>();
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if (!predicate.getName().equals("Path")) {
+                continue;
+            }
+            for (String value : predicate.getArgs().values()) {
+                if (value == null || value.equals("true") || value.equals("false")) {
+                    // matchTrailingSlash
+                    continue;
+                }
+                if (!value.startsWith("/")) {
+                    return List.of();
+                }
+                patterns.add(value);
+            }
+        }
+        return patterns;
+    }
+}
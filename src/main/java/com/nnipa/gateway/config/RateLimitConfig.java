@@ -0,0 +1,24 @@
+package com.nnipa.gateway.config;
+
+import com.nnipa.gateway.model.RateLimitKey;
+import com.nnipa.gateway.service.InMemoryProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Backend for cluster-wide rate limiting
+ * Defaults to an embedded store; define another ProxyManager bean to share
+ * buckets across gateway replicas.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(ProxyManager.class)
+    public ProxyManager<RateLimitKey> rateLimitProxyManager(ApiGatewayProperties properties) {
+        ApiGatewayProperties.RateLimiting rateLimiting = properties.getRateLimiting();
+        return new InMemoryProxyManager(rateLimiting.getCacheSize(), rateLimiting.getIdleTimeout());
+    }
+}
@@ -0,0 +1,151 @@
+package com.nnipa.gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Connection pools and protocols for the proxy HttpClient used by the routes
+ * All routes share one client; api-gateway.upstream.pool applies to every
+ * upstream, and api-gateway.upstream.routes.{route-id} gives the host behind
+ * that route (each instance, for lb:// routes) a pool of its own. Pools
+ * report total, active, idle and pending connections and pending-acquire
+ * time under reactor.netty.connection.provider.*.
+ * These settings replace spring.cloud.gateway.server.webflux.httpclient.pool.
+ */
+@Slf4j
+@Configuration
+public class UpstreamHttpClientConfig {
+
+    private static final String POOL_NAME = "gateway-upstream";
+
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties httpClientProperties,
+                                                      ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers,
+                                                      HttpClientSslConfigurer sslConfigurer,
+                                                      GatewayProperties gatewayProperties,
+                                                      ApiGatewayProperties properties) {
+        return new PooledHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer, customizers,
+                gatewayProperties.getRoutes(), properties.getUpstream(), properties.getLoadBalancing());
+    }
+
+    /**
+     * HTTP/2 (TLS) or h2c (cleartext) lets one upstream connection multiplex many requests
+     */
+    @Bean
+    public HttpClientCustomizer upstreamProtocolCustomizer(ApiGatewayProperties properties) {
+        HttpProtocol[] protocols = properties.getUpstream().getProtocols().toArray(new HttpProtocol[0]);
+        return httpClient -> httpClient.protocol(protocols);
+    }
+
+    private static class PooledHttpClientFactory extends HttpClientFactory {
+
+        private final List<RouteDefinition> routes;
+        private final ApiGatewayProperties.Upstream upstream;
+        private final ApiGatewayProperties.LoadBalancing loadBalancing;
+
+        PooledHttpClientFactory(HttpClientProperties httpClientProperties, ServerProperties serverProperties,
+                                HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                List<RouteDefinition> routes, ApiGatewayProperties.Upstream upstream,
+                                ApiGatewayProperties.LoadBalancing loadBalancing) {
+            super(httpClientProperties, serverProperties, sslConfigurer, customizers);
+            this.routes = routes;
+            this.upstream = upstream;
+            this.loadBalancing = loadBalancing;
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties httpClientProperties) {
+            ConnectionProvider.Builder builder = ConnectionProvider.builder(POOL_NAME);
+            applyPool(builder, upstream.getPool());
+
+            Set<SocketAddress> configured = new HashSet<>();
+            for (RouteDefinition route : routes) {
+                ApiGatewayProperties.Upstream.Pool pool = upstream.getRoutes().get(route.getId());
+                if (pool == null) {
+                    continue;
+                }
+                for (URI uri : upstreamUris(route.getUri())) {
+                    SocketAddress address = remoteAddress(uri);
+                    if (address == null) {
+                        continue;
+                    }
+                    if (!configured.add(address)) {
+                        log.warn("Upstream {} already has a dedicated pool, ignoring the one for route {}",
+                                address, route.getId());
+                        continue;
+                    }
+                    builder.forRemoteHost(address, spec -> applyPool(spec, pool));
+                    log.info("Dedicated upstream pool for route {} ({}): {} connections",
+                            route.getId(), address, pool.getMaxConnections());
+                }
+            }
+
+            for (Map.Entry<String, ApiGatewayProperties.Upstream.Pool> entry : upstream.getRoutes().entrySet()) {
+                if (routes.stream().noneMatch(route -> route.getId().equals(entry.getKey()))) {
+                    log.warn("Upstream pool configured for unknown route {}", entry.getKey());
+                }
+            }
+
+            return builder.build();
+        }
+
+        private static <S extends ConnectionProvider.ConnectionPoolSpec<S>> void applyPool(
+                S spec, ApiGatewayProperties.Upstream.Pool pool) {
+            spec.maxConnections(pool.getMaxConnections())
+                    .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                    .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                    .maxIdleTime(pool.getMaxIdleTime())
+                    .maxLifeTime(pool.getMaxLifeTime())
+                    .evictInBackground(pool.getEvictionInterval())
+                    .metrics(true);
+            if (pool.getLeasingStrategy() == ApiGatewayProperties.Upstream.LeasingStrategy.LIFO) {
+                spec.lifo();
+            } else {
+                spec.fifo();
+            }
+        }
+
+        /**
+         * The route URI, or the instances of its lb:// service; each instance gets its own pool
+         */
+        private List<URI> upstreamUris(URI routeUri) {
+            if (routeUri != null && "lb".equals(routeUri.getScheme())) {
+                ApiGatewayProperties.LoadBalancing.ServiceDefinition service =
+                        loadBalancing.getServices().get(routeUri.getHost());
+                return service != null ? service.getInstances() : List.of();
+            }
+            return routeUri != null ? List.of(routeUri) : List.of();
+        }
+
+        /**
+         * Address the proxy connects to for an upstream URI, or null for non-HTTP ones
+         */
+        private static SocketAddress remoteAddress(URI uri) {
+            String scheme = uri.getScheme();
+            if (uri.getHost() == null || !("http".equals(scheme) || "https".equals(scheme))) {
+                return null;
+            }
+            int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(scheme) ? 443 : 80);
+            return InetSocketAddress.createUnresolved(uri.getHost(), port);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.nnipa.gateway.controller;
+
+import com.nnipa.gateway.service.EdgeAuthorizationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Revocation endpoint for the edge authorization cache
+ * authorization-service posts here when roles or permissions change, with the
+ * affected userId and/or tenantId; an empty body drops every cached decision.
+ * Callers must send api-gateway.authorization.invalidation-token in
+ * X-Invalidation-Token; while no token is configured every call is rejected.
+ */
+@RestController
+@RequestMapping("/gateway/authz")
+@RequiredArgsConstructor
+public class AuthorizationCacheController {
+
+    private final EdgeAuthorizationService authorizationService;
+
+    @PostMapping("/invalidate")
+    public Mono<Map<String, Object>> invalidate(
+            @RequestHeader(value = "X-Invalidation-Token", required = false) String token,
+            @RequestBody(required = false) InvalidationRequest request) {
+        return SharedTokens.verify(authorizationService.getInvalidationToken(), token, "authorization cache invalidation")
+                .then(Mono.fromSupplier(() -> {
+                    String userId = request != null && StringUtils.hasText(request.userId()) ? request.userId() : null;
+                    String tenantId = request != null && StringUtils.hasText(request.tenantId()) ? request.tenantId() : null;
+                    return Map.<String, Object>of("invalidated", authorizationService.invalidate(userId, tenantId));
+                }));
+    }
+
+    public record InvalidationRequest(String userId, String tenantId) {
+    }
+}
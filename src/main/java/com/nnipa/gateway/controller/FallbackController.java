@@ -1,17 +1,14 @@
 package com.nnipa.gateway.controller;
 
+import com.nnipa.gateway.exception.ErrorResponseWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Fallback controller for circuit breaker
  * Provides graceful degradation when services are unavailable
@@ -21,65 +18,64 @@ import java.util.Map;
 @RequestMapping("/fallback")
 public class FallbackController {
 
+    private static final ErrorResponseWriter.Template AUTH =
+            fallback("Authentication Service", "The authentication service is temporarily unavailable. Please try again later.");
+    private static final ErrorResponseWriter.Template TENANT =
+            fallback("Tenant Service", "The tenant service is temporarily unavailable. Please try again later.");
+    private static final ErrorResponseWriter.Template AUTHORIZATION =
+            fallback("Authorization Service", "The authorization service is temporarily unavailable. Please try again later.");
+    private static final ErrorResponseWriter.Template USER =
+            fallback("User Management Service", "The user management service is temporarily unavailable. Please try again later.");
+    private static final ErrorResponseWriter.Template NOTIFICATION =
+            fallback("Notification Service", "The notification service is temporarily unavailable. Please try again later.");
+    private static final ErrorResponseWriter.Template STORAGE =
+            fallback("Storage Service", "The storage service is temporarily unavailable. Please try again later.");
+
     @RequestMapping(value = "/auth", method = {RequestMethod.GET, RequestMethod.POST,
             RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.PATCH})
-    public Mono<ResponseEntity<Map<String, Object>>> authServiceFallback() {
+    public Mono<Void> authServiceFallback(ServerWebExchange exchange) {
         log.warn("Auth service circuit breaker activated");
-        return createFallbackResponse("Authentication Service",
-                "The authentication service is temporarily unavailable. Please try again later.");
+        return ErrorResponseWriter.write(exchange, AUTH);
     }
 
     @RequestMapping(value = "/tenant", method = {RequestMethod.GET, RequestMethod.POST,
             RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.PATCH})
-    public Mono<ResponseEntity<Map<String, Object>>> tenantServiceFallback() {
+    public Mono<Void> tenantServiceFallback(ServerWebExchange exchange) {
         log.warn("Tenant service circuit breaker activated");
-        return createFallbackResponse("Tenant Service",
-                "The tenant service is temporarily unavailable. Please try again later.");
+        return ErrorResponseWriter.write(exchange, TENANT);
     }
 
     @RequestMapping(value = "/authorization", method = {RequestMethod.GET, RequestMethod.POST,
             RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.PATCH})
-    public Mono<ResponseEntity<Map<String, Object>>> authorizationServiceFallback() {
+    public Mono<Void> authorizationServiceFallback(ServerWebExchange exchange) {
         log.warn("Authorization service circuit breaker activated");
-        return createFallbackResponse("Authorization Service",
-                "The authorization service is temporarily unavailable. Please try again later.");
+        return ErrorResponseWriter.write(exchange, AUTHORIZATION);
     }
 
     @RequestMapping(value = "/user", method = {RequestMethod.GET, RequestMethod.POST,
             RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.PATCH})
-    public Mono<ResponseEntity<Map<String, Object>>> userServiceFallback() {
+    public Mono<Void> userServiceFallback(ServerWebExchange exchange) {
         log.warn("User service circuit breaker activated");
-        return createFallbackResponse("User Management Service",
-                "The user management service is temporarily unavailable. Please try again later.");
+        return ErrorResponseWriter.write(exchange, USER);
     }
 
     @RequestMapping(value = "/notification", method = {RequestMethod.GET, RequestMethod.POST,
             RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.PATCH})
-    public Mono<ResponseEntity<Map<String, Object>>> notificationServiceFallback() {
+    public Mono<Void> notificationServiceFallback(ServerWebExchange exchange) {
         log.warn("Notification service circuit breaker activated");
-        return createFallbackResponse("Notification Service",
-                "The notification service is temporarily unavailable. Please try again later.");
+        return ErrorResponseWriter.write(exchange, NOTIFICATION);
     }
 
     @RequestMapping(value = "/storage", method = {RequestMethod.GET, RequestMethod.POST,
             RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.PATCH})
-    public Mono<ResponseEntity<Map<String, Object>>> storageServiceFallback() {
+    public Mono<Void> storageServiceFallback(ServerWebExchange exchange) {
         log.warn("Storage service circuit breaker activated");
-        return createFallbackResponse("Storage Service",
-                "The storage service is temporarily unavailable. Please try again later.");
+        return ErrorResponseWriter.write(exchange, STORAGE);
     }
 
-    private Mono<ResponseEntity<Map<String, Object>>> createFallbackResponse(
-            String service, String message) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("error", "Service Unavailable");
-        response.put("service", service);
-        response.put("message", message);
-        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
-        response.put("timestamp", Instant.now().toString());
-
-        return Mono.just(ResponseEntity
-                .status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body(response));
+    private static ErrorResponseWriter.Template fallback(String service, String message) {
+        return ErrorResponseWriter.Template.of(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable")
+                .withField("service", service)
+                .withField("message", message);
     }
-}
\ No newline at end of file
+}
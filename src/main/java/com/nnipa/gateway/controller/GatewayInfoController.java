@@ -1,9 +1,11 @@
 package com.nnipa.gateway.controller;
 
+import com.nnipa.gateway.service.RouteTableService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -23,7 +25,10 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class GatewayInfoController {
 
+    private static final String ROUTE_GENERATION_HEADER = "X-Route-Generation";
+
     private final RouteLocator routeLocator;
+    private final RouteTableService routeTableService;
 
     @GetMapping("/info")
     public Mono<Map<String, Object>> getGatewayInfo() {
@@ -32,12 +37,20 @@ public class GatewayInfoController {
         info.put("version", "1.0.0");
         info.put("timestamp", Instant.now().toString());
         info.put("status", "UP");
+        info.put("routeGeneration", routeTableService.getGeneration());
+        if (routeTableService.getActivatedAt() != null) {
+            info.put("routesActivatedAt", routeTableService.getActivatedAt().toString());
+        }
 
         return Mono.just(info);
     }
 
+    /**
+     * Routes of the active table; X-Route-Generation identifies which table answered
+     */
     @GetMapping("/routes")
-    public Flux<Map<String, Object>> getRoutes() {
+    public Flux<Map<String, Object>> getRoutes(ServerHttpResponse response) {
+        response.getHeaders().set(ROUTE_GENERATION_HEADER, String.valueOf(routeTableService.getGeneration()));
         return routeLocator.getRoutes()
                 .map(this::routeToMap);
     }
@@ -0,0 +1,78 @@
+package com.nnipa.gateway.controller;
+
+import com.nnipa.gateway.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Push endpoint for token revocations
+ * auth-service posts revoked tokens (jti and the token's exp) on logout, and
+ * revoked users (userId, optionally the latest exp among their tokens) when
+ * credentials are reset or an account is locked. Times are epoch seconds, as
+ * in the JWT. Callers must send api-gateway.revocation.push-token in
+ * X-Revocation-Token; while no token is configured every push is rejected.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/gateway/revocations")
+@RequiredArgsConstructor
+public class RevocationController {
+
+    private final TokenRevocationService revocationService;
+
+    @PostMapping
+    public Mono<Map<String, Object>> revoke(
+            @RequestHeader(value = "X-Revocation-Token", required = false) String token,
+            @RequestBody List<RevocationRequest> revocations) {
+        return SharedTokens.verify(revocationService.getPushToken(), token, "revocation push")
+                .then(Mono.fromSupplier(() -> {
+                    // Validate the whole batch first, so a bad entry never leaves it half applied
+                    revocations.forEach(RevocationController::validate);
+                    apply(revocations);
+                    log.info("Accepted {} revocations", revocations.size());
+                    return Map.<String, Object>of("revoked", revocations.size());
+                }));
+    }
+
+    private static void validate(RevocationRequest revocation) {
+        if (revocation == null) {
+            throw new IllegalArgumentException("Each revocation needs a jti or a userId");
+        }
+        if (StringUtils.hasText(revocation.jti())) {
+            if (revocation.expiresAt() == null) {
+                throw new IllegalArgumentException("expiresAt is required to revoke a token");
+            }
+        } else if (StringUtils.hasText(revocation.userId())) {
+            UUID.fromString(revocation.userId());
+        } else {
+            throw new IllegalArgumentException("Each revocation needs a jti or a userId");
+        }
+    }
+
+    private void apply(List<RevocationRequest> revocations) {
+        long now = System.currentTimeMillis();
+        for (RevocationRequest revocation : revocations) {
+            Long expiresAt = revocation.expiresAt() != null ? TimeUnit.SECONDS.toMillis(revocation.expiresAt()) : null;
+            if (StringUtils.hasText(revocation.jti())) {
+                revocationService.revokeToken(revocation.jti(), expiresAt);
+            } else {
+                revocationService.revokeUser(UUID.fromString(revocation.userId()), now, expiresAt);
+            }
+        }
+    }
+
+    public record RevocationRequest(String jti, String userId, Long expiresAt) {
+    }
+}
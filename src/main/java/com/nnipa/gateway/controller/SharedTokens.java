@@ -0,0 +1,41 @@
+package com.nnipa.gateway.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared-secret check for the endpoints other services push to
+ * The presented token is compared in constant time, and while no token is
+ * configured every call is rejected, so an unset property never leaves an
+ * endpoint open.
+ */
+@Slf4j
+final class SharedTokens {
+
+    private SharedTokens() {
+    }
+
+    /**
+     * Completes empty when the presented token matches the configured one, otherwise fails with 403
+     *
+     * @param action what the call does, for the log
+     */
+    static Mono<Void> verify(String expected, String presented, String action) {
+        if (!StringUtils.hasText(expected)) {
+            log.warn("Rejected {}: no token is configured", action);
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Endpoint is not enabled"));
+        }
+        if (presented == null || !MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected {} with a missing or wrong token", action);
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Missing or wrong token"));
+        }
+        return Mono.empty();
+    }
+}
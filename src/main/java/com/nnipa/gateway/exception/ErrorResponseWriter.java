@@ -0,0 +1,214 @@
+package com.nnipa.gateway.exception;
+
+import com.nnipa.gateway.util.CorrelationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * JSON error responses written from pre-encoded templates
+ * The static part of each body (error, status, fixed message and fields) is
+ * encoded once per template; per request only the dynamic fields (message,
+ * timestamp, path, correlationId) are appended, straight into a DataBuffer
+ * from the response's buffer factory, which is pooled under Reactor Netty.
+ * This keeps 401/429/5xx storms off String.format, maps and ObjectMapper.
+ */
+public final class ErrorResponseWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_SECONDS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private static final byte[] MESSAGE_FIELD = ascii(",\"message\":\"");
+    private static final byte[] TIMESTAMP_FIELD = ascii(",\"timestamp\":\"");
+    private static final byte[] PATH_FIELD = ascii("\",\"path\":\"");
+    private static final byte[] CORRELATION_ID_FIELD = ascii("\",\"correlationId\":\"");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    /**
+     * Timestamp prefix (up to whole seconds) of the last second an error was written in
+     */
+    private static volatile CachedSecond cachedSecond = new CachedSecond(Long.MIN_VALUE, new byte[0]);
+
+    private ErrorResponseWriter() {
+    }
+
+    /**
+     * Write the template with no dynamic message
+     */
+    public static Mono<Void> write(ServerWebExchange exchange, Template template) {
+        return write(exchange, template, null);
+    }
+
+    /**
+     * Write the template, adding a message if the template has none baked in
+     */
+    public static Mono<Void> write(ServerWebExchange exchange, Template template, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        String correlationId = CorrelationContext.get(exchange);
+        String path = exchange.getRequest().getPath().value();
+
+        response.setStatusCode(template.status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        if (correlationId != null) {
+            response.getHeaders().set("X-Correlation-Id", correlationId);
+        }
+
+        boolean dynamicMessage = message != null && !template.hasMessage;
+        int estimate = template.prefix.length + 64 + path.length()
+                + (correlationId != null ? correlationId.length() + 20 : 0)
+                + (dynamicMessage ? message.length() + 16 : 0);
+
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(estimate);
+        try {
+            buffer.write(template.prefix);
+            if (dynamicMessage) {
+                buffer.write(MESSAGE_FIELD);
+                writeEscaped(buffer, message);
+                buffer.write((byte) '"');
+            }
+            buffer.write(TIMESTAMP_FIELD);
+            writeTimestamp(buffer, System.currentTimeMillis());
+            buffer.write(PATH_FIELD);
+            writeEscaped(buffer, path);
+            if (correlationId != null) {
+                buffer.write(CORRELATION_ID_FIELD);
+                writeEscaped(buffer, correlationId);
+            }
+            buffer.write(new byte[]{'"', '}'});
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+
+        response.getHeaders().setContentLength(buffer.readableByteCount());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private static void writeTimestamp(DataBuffer buffer, long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000);
+        CachedSecond cached = cachedSecond;
+        if (cached.epochSecond != epochSecond) {
+            cached = new CachedSecond(epochSecond,
+                    ascii(TIMESTAMP_SECONDS.format(Instant.ofEpochSecond(epochSecond))));
+            cachedSecond = cached;
+        }
+        int millis = (int) Math.floorMod(epochMillis, 1000);
+        buffer.write(cached.prefix);
+        buffer.write(new byte[]{'.',
+                (byte) ('0' + millis / 100),
+                (byte) ('0' + millis / 10 % 10),
+                (byte) ('0' + millis % 10),
+                'Z'});
+    }
+
+    /**
+     * Append a JSON string body, escaping ASCII and encoding anything else as UTF-8, character by character
+     */
+    private static void writeEscaped(DataBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                int codePoint = value.codePointAt(i);
+                i += Character.charCount(codePoint) - 1;
+                writeUtf8(buffer, codePoint);
+            } else if (c == '"' || c == '\\') {
+                buffer.write(new byte[]{'\\', (byte) c});
+            } else if (c < 0x20) {
+                buffer.write(new byte[]{'\\', 'u', '0', '0', HEX[c >> 4], HEX[c & 0xF]});
+            } else {
+                buffer.write((byte) c);
+            }
+        }
+    }
+
+    private static void writeUtf8(DataBuffer buffer, int codePoint) {
+        if (codePoint < 0x800) {
+            buffer.write((byte) (0xC0 | codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                // Unpaired surrogate, replaced as String.getBytes would
+                buffer.write((byte) '?');
+                return;
+            }
+            buffer.write((byte) (0xE0 | codePoint >> 12));
+            buffer.write((byte) (0x80 | codePoint >> 6 & 0x3F));
+        } else {
+            buffer.write((byte) (0xF0 | codePoint >> 18));
+            buffer.write((byte) (0x80 | codePoint >> 12 & 0x3F));
+            buffer.write((byte) (0x80 | codePoint >> 6 & 0x3F));
+        }
+        buffer.write((byte) (0x80 | codePoint & 0x3F));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private record CachedSecond(long epochSecond, byte[] prefix) {
+    }
+
+    /**
+     * Pre-encoded static part of an error body
+     */
+    public static final class Template {
+
+        private final HttpStatus status;
+        private final String json;
+        private final byte[] prefix;
+        private final boolean hasMessage;
+
+        private Template(HttpStatus status, String json, boolean hasMessage) {
+            this.status = status;
+            this.json = json;
+            this.prefix = json.getBytes(StandardCharsets.UTF_8);
+            this.hasMessage = hasMessage;
+        }
+
+        /**
+         * Template whose message is supplied per request, if at all
+         */
+        public static Template of(HttpStatus status, String error) {
+            return new Template(status, "{\"error\":" + quote(error) + ",\"status\":" + status.value(), false);
+        }
+
+        public static Template of(HttpStatus status, String error, String message) {
+            return of(status, error).withField("message", message);
+        }
+
+        /**
+         * Copy of this template with another fixed string field
+         */
+        public Template withField(String name, String value) {
+            return new Template(status, json + "," + quote(name) + ":" + quote(value),
+                    hasMessage || "message".equals(name));
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+
+        private static String quote(String value) {
+            StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    quoted.append('\\').append(c);
+                } else if (c < 0x20) {
+                    quoted.append(String.format("\\u%04x", (int) c));
+                } else {
+                    quoted.append(c);
+                }
+            }
+            return quoted.append('"').toString();
+        }
+    }
+}
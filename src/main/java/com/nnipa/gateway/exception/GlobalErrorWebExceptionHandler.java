@@ -1,95 +1,69 @@
 package com.nnipa.gateway.exception;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.nnipa.gateway.util.CorrelationContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.cloud.gateway.support.NotFoundException;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Global error handler for gateway exceptions
+ * Bodies are written from pre-encoded templates by ErrorResponseWriter.
  */
 @Slf4j
 @Order(-1)
 @Configuration
-@RequiredArgsConstructor
 public class GlobalErrorWebExceptionHandler implements ErrorWebExceptionHandler {
 
-    private final ObjectMapper objectMapper;
+    private static final ErrorResponseWriter.Template NOT_FOUND = ErrorResponseWriter.Template.of(
+            HttpStatus.NOT_FOUND, "Not Found", "Service not found");
+    private static final ErrorResponseWriter.Template INTERNAL_ERROR = ErrorResponseWriter.Template.of(
+            HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "An unexpected error occurred");
+    private static final ErrorResponseWriter.Template BAD_REQUEST = ErrorResponseWriter.Template.of(
+            HttpStatus.BAD_REQUEST, "Bad Request");
+
+    /**
+     * "Request Failed" templates per status, built on first use
+     */
+    private final Map<HttpStatus, ErrorResponseWriter.Template> requestFailed = new ConcurrentHashMap<>();
 
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
-        ServerHttpResponse response = exchange.getResponse();
-
-        if (response.isCommitted()) {
+        if (exchange.getResponse().isCommitted()) {
             return Mono.error(ex);
         }
 
-        String correlationId = exchange.getRequest().getHeaders().getFirst("X-Correlation-Id");
+        ErrorResponseWriter.Template template;
+        String message = null;
 
-        HttpStatus status;
-        String message;
-        String error;
-
-        if (ex instanceof ResponseStatusException) {
-            ResponseStatusException responseStatusException = (ResponseStatusException) ex;
-            status = HttpStatus.valueOf(responseStatusException.getStatusCode().value());
+        if (ex instanceof ResponseStatusException responseStatusException) {
+            HttpStatus status = HttpStatus.valueOf(responseStatusException.getStatusCode().value());
+            template = requestFailed.computeIfAbsent(status,
+                    key -> ErrorResponseWriter.Template.of(key, "Request Failed"));
             message = responseStatusException.getReason();
-            error = "Request Failed";
         } else if (ex instanceof NotFoundException) {
-            status = HttpStatus.NOT_FOUND;
-            message = "Service not found";
-            error = "Not Found";
+            template = NOT_FOUND;
         } else if (ex instanceof IllegalArgumentException) {
-            status = HttpStatus.BAD_REQUEST;
+            template = BAD_REQUEST;
             message = ex.getMessage();
-            error = "Bad Request";
         } else {
-            status = HttpStatus.INTERNAL_SERVER_ERROR;
-            message = "An unexpected error occurred";
-            error = "Internal Server Error";
-        }
-
-        log.error("Gateway error [correlationId: {}]: {}", correlationId, ex.getMessage(), ex);
-
-        response.setStatusCode(status);
-        response.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-        if (correlationId != null) {
-            response.getHeaders().add("X-Correlation-Id", correlationId);
+            template = INTERNAL_ERROR;
         }
 
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("error", error);
-        errorResponse.put("message", message);
-        errorResponse.put("status", status.value());
-        errorResponse.put("timestamp", Instant.now().toString());
-        errorResponse.put("path", exchange.getRequest().getPath().toString());
-        if (correlationId != null) {
-            errorResponse.put("correlationId", correlationId);
+        if (template.getStatus().is5xxServerError()) {
+            log.error("Gateway error [correlationId: {}]: {}", CorrelationContext.get(exchange), ex.getMessage(), ex);
+        } else {
+            log.debug("Gateway error [correlationId: {}]: {}", CorrelationContext.get(exchange), ex.getMessage());
         }
 
-        try {
-            byte[] bytes = objectMapper.writeValueAsBytes(errorResponse);
-            DataBuffer buffer = response.bufferFactory().wrap(bytes);
-            return response.writeWith(Mono.just(buffer));
-        } catch (JsonProcessingException e) {
-            log.error("Error writing response", e);
-            return Mono.error(e);
-        }
+        return ErrorResponseWriter.write(exchange, template, message);
     }
-}
\ No newline at end of file
+}
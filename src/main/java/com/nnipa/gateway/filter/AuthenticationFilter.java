@@ -1,56 +1,53 @@
 package com.nnipa.gateway.filter;
 
+import com.nnipa.gateway.exception.ErrorResponseWriter;
+import com.nnipa.gateway.model.VerifiedPrincipal;
+import com.nnipa.gateway.service.TokenRevocationService;
 import com.nnipa.gateway.util.JwtUtils;
-import lombok.RequiredArgsConstructor;
+import com.nnipa.gateway.util.PublicPathMatcher;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
-import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.UUID;
 
 /**
  * Authentication filter for protected routes
- * Validates JWT tokens and adds user context headers
+ * Validates JWT tokens, rejects revoked ones and adds user context headers
  */
 @Slf4j
 @Component
 public class AuthenticationFilter extends AbstractGatewayFilterFactory<AuthenticationFilter.Config> {
 
+    /**
+     * Exchange attribute holding the VerifiedPrincipal of an authenticated request
+     */
+    public static final String PRINCIPAL_ATTR = AuthenticationFilter.class.getName() + ".principal";
+
+    private static final ErrorResponseWriter.Template MISSING_TOKEN =
+            ErrorResponseWriter.Template.of(HttpStatus.UNAUTHORIZED, "Missing or invalid Authorization header");
+    private static final ErrorResponseWriter.Template INVALID_TOKEN =
+            ErrorResponseWriter.Template.of(HttpStatus.UNAUTHORIZED, "Invalid token");
+    private static final ErrorResponseWriter.Template REVOKED_TOKEN =
+            ErrorResponseWriter.Template.of(HttpStatus.UNAUTHORIZED, "Token revoked");
+    private static final ErrorResponseWriter.Template VALIDATION_FAILED =
+            ErrorResponseWriter.Template.of(HttpStatus.UNAUTHORIZED, "Token validation failed");
+
     private final JwtUtils jwtUtils;
-    private final List<String> publicPaths;
+    private final PublicPathMatcher publicPathMatcher;
+    private final TokenRevocationService revocationService;
 
-    public AuthenticationFilter(JwtUtils jwtUtils) {
+    public AuthenticationFilter(JwtUtils jwtUtils, PublicPathMatcher publicPathMatcher,
+                                TokenRevocationService revocationService) {
         super(Config.class);
         this.jwtUtils = jwtUtils;
-        // Hardcode public paths for now to avoid injection issues
-        this.publicPaths = Arrays.asList(
-                "/api/v1/auth/register",
-                "/api/v1/auth/login",
-                "/api/v1/auth/refresh",
-                "/api/v1/auth/forgot-password",
-                "/api/v1/auth/reset-password",
-                "/actuator/health",
-                "/actuator/prometheus",
-                "/swagger-ui/**",
-                "/v3/api-docs/**",
-                "/auth-docs/**",
-                "/auth-service/**",
-                "/tenant-docs/**",
-                "/tenant-service/**",
-                "/tenant-health/**",
-                "/tenant-management/**"
-        );
+        this.publicPathMatcher = publicPathMatcher;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -59,7 +56,7 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
             ServerHttpRequest request = exchange.getRequest();
 
             // Skip authentication for public paths
-            if (isPublicPath(request.getPath().toString())) {
+            if (publicPathMatcher.isPublicPath(request.getPath().value())) {
                 return chain.filter(exchange);
             }
 
@@ -67,57 +64,47 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
             String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
             if (!StringUtils.hasText(authHeader) || !authHeader.startsWith("Bearer ")) {
-                return onError(exchange, "Missing or invalid Authorization header", HttpStatus.UNAUTHORIZED);
+                return ErrorResponseWriter.write(exchange, MISSING_TOKEN);
             }
 
             String token = authHeader.substring(7);
 
             try {
-                // Validate token and extract claims
-                if (!jwtUtils.isValidToken(token)) {
-                    return onError(exchange, "Invalid token", HttpStatus.UNAUTHORIZED);
+                // Verify once and read the whole principal from the result
+                VerifiedPrincipal principal;
+                try {
+                    principal = jwtUtils.verify(token);
+                } catch (RuntimeException e) {
+                    return ErrorResponseWriter.write(exchange, INVALID_TOKEN);
+                }
+
+                // Checked on every request, including principals served from the claims cache
+                if (revocationService.isRevoked(principal)) {
+                    log.debug("Rejected revoked token for user: {}", principal.getUserId());
+                    return ErrorResponseWriter.write(exchange, REVOKED_TOKEN);
                 }
 
-                UUID userId = jwtUtils.extractUserId(token);
-                UUID tenantId = jwtUtils.extractTenantId(token);
-                String correlationId = jwtUtils.extractCorrelationId(token);
+                UUID userId = principal.getUserId();
+                UUID tenantId = principal.getTenantId();
 
                 // Add user context to headers for downstream services
-                ServerHttpRequest mutatedRequest = request.mutate()
-                        .header("X-User-Id", userId != null ? userId.toString() : "")
-                        .header("X-Tenant-Id", tenantId != null ? tenantId.toString() : "")
-                        .build();
+                HeaderMutationPlan.of(exchange)
+                        .set("X-User-Id", userId != null ? userId.toString() : "")
+                        .set("X-Tenant-Id", tenantId != null ? tenantId.toString() : "");
 
-                ServerWebExchange mutatedExchange = exchange.mutate()
-                        .request(mutatedRequest)
-                        .build();
+                exchange.getAttributes().put(PRINCIPAL_ATTR, principal);
 
                 log.debug("Authenticated request for user: {} tenant: {}", userId, tenantId);
 
-                return chain.filter(mutatedExchange);
+                return chain.filter(exchange);
 
             } catch (Exception e) {
                 log.error("Token validation failed: {}", e.getMessage());
-                return onError(exchange, "Token validation failed", HttpStatus.UNAUTHORIZED);
+                return ErrorResponseWriter.write(exchange, VALIDATION_FAILED);
             }
         };
     }
 
-    private boolean isPublicPath(String path) {
-        return publicPaths != null && publicPaths.stream()
-                .anyMatch(publicPath -> path.matches(publicPath.replace("**", ".*")));
-    }
-
-    private Mono<Void> onError(ServerWebExchange exchange, String err, HttpStatus httpStatus) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(httpStatus);
-        response.getHeaders().add("Content-Type", "application/json");
-
-        String body = String.format("{\"error\": \"%s\", \"status\": %d}", err, httpStatus.value());
-
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
-    }
-
     public static class Config {
         // Configuration properties can be added here if needed
     }
@@ -0,0 +1,43 @@
+package com.nnipa.gateway.filter;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable copy of a body streaming past, abandoned once it exceeds the limit
+ */
+final class BodyCapture {
+
+    private final int limit;
+    private byte[] bytes = new byte[4096];
+    private int size;
+
+    BodyCapture(long limit) {
+        this.limit = (int) Math.min(limit, Integer.MAX_VALUE - 8);
+    }
+
+    void append(DataBuffer buffer) {
+        if (bytes == null) {
+            return;
+        }
+        int length = buffer.readableByteCount();
+        if (size + length > limit) {
+            bytes = null;
+            return;
+        }
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(size + length, bytes.length * 2)));
+        }
+        buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), size, length);
+        size += length;
+    }
+
+    /**
+     * The captured bytes, or null if the body went over the limit
+     */
+    byte[] toByteArray() {
+        return bytes != null ? Arrays.copyOf(bytes, size) : null;
+    }
+}
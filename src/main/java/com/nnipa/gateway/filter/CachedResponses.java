@@ -0,0 +1,86 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.model.CachedResponse;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Keys, snapshots and replay of upstream responses shared between exchanges
+ */
+final class CachedResponses {
+
+    /**
+     * Response headers that describe the connection or one particular exchange, never replayed
+     */
+    private static final Set<String> EXCHANGE_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "content-length", "date", "age",
+            "x-cache", "x-correlation-id", "retry-after", "ratelimit-limit", "ratelimit-remaining",
+            "ratelimit-reset", "x-ratelimit-limit", "x-ratelimit-remaining", "x-ratelimit-reset");
+
+    private CachedResponses() {
+    }
+
+    /**
+     * Route, raw path and query, plus the given request headers as they will be proxied
+     */
+    static String requestKey(ServerWebExchange exchange, List<String> keyHeaders) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        String query = request.getURI().getRawQuery();
+
+        StringBuilder key = new StringBuilder(128)
+                .append(route != null ? route.getId() : "default")
+                .append(' ')
+                .append(request.getURI().getRawPath());
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (String name : keyHeaders) {
+            String value = HeaderMutationPlan.effectiveHeader(exchange, name);
+            key.append('\n').append(name).append('=').append(value != null ? value : "");
+        }
+        return key.toString();
+    }
+
+    /**
+     * Read-only copy of the headers worth replaying
+     */
+    static HttpHeaders snapshotHeaders(HttpHeaders source) {
+        HttpHeaders copy = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if (!EXCHANGE_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+
+    /**
+     * Write the response to this exchange
+     * Headers already set for this exchange (correlation ID, rate limits) take precedence.
+     */
+    static Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(cached.status());
+
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        headers.setContentLength(cached.body().length);
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+}
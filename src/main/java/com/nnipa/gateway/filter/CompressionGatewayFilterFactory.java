@@ -0,0 +1,208 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.filter.ResponseCompressor.ContentEncoding;
+import com.nnipa.gateway.service.CompressionService;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Response compression for routes with compressible bodies
+ * Negotiates zstd (when zstd-jni is available), gzip or deflate from the
+ * request's Accept-Encoding and compresses the body as it streams through
+ * (see ResponseCompressor). Bodies whose Content-Length is below minSize,
+ * already encoded bodies, partial content, no-transform responses and
+ * already compressed content types are passed through untouched.
+ * It runs just inside NettyWriteResponseFilter wherever it is listed, like
+ * ModifyResponseBody, so responses served by ResponseCache,
+ * RequestCoalescing or a CircuitBreaker fallback are compressed too and
+ * those filters keep uncompressed bodies.
+ */
+@Slf4j
+@Component
+public class CompressionGatewayFilterFactory extends AbstractGatewayFilterFactory<CompressionGatewayFilterFactory.Config> {
+
+    private final CompressionService compressionService;
+
+    public CompressionGatewayFilterFactory(CompressionService compressionService) {
+        super(Config.class);
+        this.compressionService = compressionService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        GatewayFilter filter = (exchange, chain) -> {
+            if (!compressionService.isEnabled() || exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+                return chain.filter(exchange);
+            }
+
+            ContentEncoding encoding = negotiate(exchange.getRequest().getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING));
+            long minSize = config.getMinSize() != null ? config.getMinSize().toBytes() : compressionService.getMinSizeBytes();
+            CompressingResponse response = new CompressingResponse(exchange.getResponse(), encoding, minSize,
+                    routeId(exchange));
+            return chain.filter(exchange.mutate().response(response).build());
+        };
+        // Outside the decorators route filters register, so those keep uncompressed bodies
+        return new OrderedGatewayFilter(filter, ResponseDecoratorFilter.ORDER - 1);
+    }
+
+    /**
+     * The supported encoding with the highest q-value, or null if the client accepts none
+     * "*" stands for gzip and deflate unless the client named them itself, so
+     * "gzip;q=0, *" still refuses gzip.
+     */
+    private ContentEncoding negotiate(List<String> acceptEncoding) {
+        Map<ContentEncoding, Double> qualities = new EnumMap<>(ContentEncoding.class);
+        double wildcard = 0;
+        for (String header : acceptEncoding) {
+            for (String entry : header.split(",")) {
+                String[] parts = entry.split(";");
+                String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+                ContentEncoding encoding = switch (coding) {
+                    case "zstd" -> compressionService.isZstdAvailable() ? ContentEncoding.ZSTD : null;
+                    case "gzip", "x-gzip" -> ContentEncoding.GZIP;
+                    case "deflate" -> ContentEncoding.DEFLATE;
+                    default -> null;
+                };
+                if (encoding != null) {
+                    qualities.merge(encoding, quality(parts), Math::max);
+                } else if (coding.equals("*")) {
+                    wildcard = quality(parts);
+                }
+            }
+        }
+        qualities.putIfAbsent(ContentEncoding.GZIP, wildcard);
+        qualities.putIfAbsent(ContentEncoding.DEFLATE, wildcard);
+
+        ContentEncoding best = null;
+        double bestQuality = 0;
+        // Ties go to the earlier, preferred encoding
+        for (Map.Entry<ContentEncoding, Double> entry : qualities.entrySet()) {
+            if (entry.getValue() > bestQuality) {
+                best = entry.getKey();
+                bestQuality = entry.getValue();
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    /**
+     * Compresses the body on its way to the client when the response allows it
+     */
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final ContentEncoding encoding;
+        private final long minSize;
+        private final String routeId;
+
+        CompressingResponse(ServerHttpResponse delegate, ContentEncoding encoding, long minSize, String routeId) {
+            super(delegate);
+            this.encoding = encoding;
+            this.minSize = minSize;
+            this.routeId = routeId;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            if (!isCompressible(headers)) {
+                return super.writeWith(body);
+            }
+            // The representation depends on Accept-Encoding whether or not this client gets it compressed
+            if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            long contentLength = headers.getContentLength();
+            if (encoding == null || (contentLength >= 0 && contentLength < minSize)) {
+                return super.writeWith(body);
+            }
+
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding.token());
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                // The compressed bytes differ, so a strong validator no longer applies
+                headers.setETag("W/" + etag);
+            }
+
+            ResponseCompressor compressor = new ResponseCompressor(encoding, compressionService.getLevel(), bufferFactory());
+            Flux<DataBuffer> compressed = Flux.<DataBuffer>from(body)
+                    .concatMapIterable(compressor::encode)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(compressor.finish())))
+                    .doOnComplete(() -> compressionService.record(routeId, encoding.token(),
+                            compressor.getInputBytes(), compressor.getOutputBytes(), compressor.getEncodeNanos()))
+                    .doFinally(signal -> compressor.release())
+                    .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+            return super.writeWith(compressed);
+        }
+
+        private boolean isCompressible(HttpHeaders headers) {
+            HttpStatusCode status = getStatusCode();
+            if (status != null && (status.is1xxInformational() || status.value() == 204
+                    || status.value() == 206 || status.value() == 304)) {
+                return false;
+            }
+            if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_RANGE)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            if (cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-transform")) {
+                return false;
+            }
+            return compressionService.isCompressible(headers.getContentType());
+        }
+    }
+
+    public static class Config {
+        private DataSize minSize;
+
+        public DataSize getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(DataSize minSize) {
+            this.minSize = minSize;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.exception.ErrorResponseWriter;
+import com.nnipa.gateway.service.AdaptiveConcurrencyLimiter;
+import com.nnipa.gateway.service.ConcurrencyLimitService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limit filter
+ * Caps the requests in flight to the route's upstream at a limit that adapts
+ * to the upstream's latency (see AdaptiveConcurrencyLimiter). Over the limit,
+ * requests wait up to maxQueueTime for a slot and are rejected with 503
+ * otherwise, so a slow upstream sheds load instead of building queues until
+ * timeouts fire.
+ * Place it after ResponseCache and RequestCoalescing, so only requests that
+ * actually go upstream take a slot.
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private static final ErrorResponseWriter.Template OVERLOADED = ErrorResponseWriter.Template.of(
+            HttpStatus.SERVICE_UNAVAILABLE, "Service Overloaded",
+            "The service is handling too many requests. Please try again later.");
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    public ConcurrencyLimitGatewayFilterFactory(ConcurrencyLimitService concurrencyLimitService) {
+        super(Config.class);
+        this.concurrencyLimitService = concurrencyLimitService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = routeId(exchange);
+            AdaptiveConcurrencyLimiter limiter = concurrencyLimitService.limiter(routeId,
+                    config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                    config.getMaxQueueSize(), config.getMaxQueueTime());
+
+            return limiter.acquire()
+                    .then(Mono.defer(() -> {
+                        long start = System.nanoTime();
+                        return chain.filter(exchange)
+                                .doFinally(signal -> release(exchange, limiter, signal, System.nanoTime() - start));
+                    }))
+                    .onErrorResume(AdaptiveConcurrencyLimiter.LimitExceededException.class, e -> {
+                        concurrencyLimitService.recordRejected(routeId);
+                        log.debug("Concurrency limit {} reached for route {}", limiter.getLimit(), routeId);
+                        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                        return ErrorResponseWriter.write(exchange, OVERLOADED);
+                    });
+        };
+    }
+
+    /**
+     * Upstream time when UpstreamTimingFilter measured it, otherwise the time spent in the rest of the chain
+     */
+    private void release(ServerWebExchange exchange, AdaptiveConcurrencyLimiter limiter,
+                         SignalType signal, long elapsedNanos) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (signal != SignalType.ON_COMPLETE || (status != null && status.is5xxServerError())) {
+            limiter.onDropped();
+            return;
+        }
+        Long upstreamNanos = exchange.getAttribute(MetricsFilter.UPSTREAM_NANOS_ATTR);
+        limiter.onSuccess(upstreamNanos != null ? upstreamNanos : elapsedNanos);
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        private int initialLimit = 20;
+        private int minLimit = 5;
+        private int maxLimit = 500;
+        private int maxQueueSize = 50;
+        private Duration maxQueueTime = Duration.ofMillis(50);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        public Duration getMaxQueueTime() {
+            return maxQueueTime;
+        }
+
+        public void setMaxQueueTime(Duration maxQueueTime) {
+            this.maxQueueTime = maxQueueTime;
+        }
+    }
+}
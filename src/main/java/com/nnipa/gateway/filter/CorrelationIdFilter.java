@@ -1,5 +1,6 @@
 package com.nnipa.gateway.filter;
 
+import com.nnipa.gateway.util.CorrelationContext;
 import com.nnipa.gateway.util.CorrelationIdUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -9,7 +10,6 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
-import reactor.util.context.Context;
 
 /**
  * Global filter that ensures correlation ID is present in all requests
@@ -19,8 +19,6 @@ import reactor.util.context.Context;
 @Component
 public class CorrelationIdFilter implements GlobalFilter, Ordered {
 
-    private static final String CORRELATION_ID_KEY = "correlationId";
-
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
@@ -38,37 +36,17 @@ public class CorrelationIdFilter implements GlobalFilter, Ordered {
         }
 
         // Add correlation ID to request headers for downstream services
-        ServerHttpRequest mutatedRequest = request.mutate()
-                .header(CorrelationIdUtils.getHeaderName(), correlationId)
-                .build();
+        HeaderMutationPlan.of(exchange)
+                .set(CorrelationIdUtils.getHeaderName(), correlationId);
+        CorrelationContext.bind(exchange, correlationId);
 
         // Add correlation ID to response headers
         exchange.getResponse().getHeaders()
                 .add(CorrelationIdUtils.getHeaderName(), correlationId);
 
-        // Create new exchange with modified request
-        ServerWebExchange mutatedExchange = exchange.mutate()
-                .request(mutatedRequest)
-                .build();
-
-        // Log request entry with correlation ID
-        log.info("Request: {} {} [correlationId: {}]",
-                request.getMethod(),
-                request.getPath(),
-                correlationId);
-
-        String finalCorrelationId = correlationId;
-
-        // Continue filter chain with correlation context
-        return chain.filter(mutatedExchange)
-                .contextWrite(Context.of(CORRELATION_ID_KEY, finalCorrelationId))
-                .doOnSuccess(aVoid -> {
-                    log.info("Request completed successfully [correlationId: {}]", finalCorrelationId);
-                })
-                .doOnError(throwable -> {
-                    log.error("Request failed [correlationId: {}]: {}",
-                            finalCorrelationId, throwable.getMessage());
-                });
+        // Continue filter chain with correlation context; the access log records the outcome
+        return chain.filter(exchange)
+                .contextWrite(CorrelationContext.context(correlationId));
     }
 
     @Override
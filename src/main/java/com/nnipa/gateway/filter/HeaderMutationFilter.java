@@ -0,0 +1,56 @@
+package com.nnipa.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Applies the exchange's HeaderMutationPlan in one request mutation before proxying
+ * Headers only the gateway may assert are dropped from the client's request first,
+ * so a service never sees one the client sent itself.
+ */
+@Component
+public class HeaderMutationFilter implements GlobalFilter, Ordered {
+
+    private static final List<String> GATEWAY_ASSERTED_HEADERS = List.of(
+            EdgeAuthorizationGatewayFilterFactory.DECISION_HEADER,
+            EdgeAuthorizationGatewayFilterFactory.PERMISSION_HEADER);
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HeaderMutationPlan plan = HeaderMutationPlan.find(exchange);
+        HttpHeaders incoming = exchange.getRequest().getHeaders();
+        boolean asserted = GATEWAY_ASSERTED_HEADERS.stream().anyMatch(incoming::containsKey);
+        if ((plan == null || plan.isEmpty()) && !asserted) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    if (asserted) {
+                        GATEWAY_ASSERTED_HEADERS.forEach(headers::remove);
+                    }
+                    if (plan != null) {
+                        plan.applyTo(headers);
+                    }
+                })
+                .build();
+
+        return chain.filter(exchange.mutate()
+                .request(mutatedRequest)
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        // After all route filters have contributed, before the routing filters read the headers
+        return Ordered.LOWEST_PRECEDENCE - 10;
+    }
+}
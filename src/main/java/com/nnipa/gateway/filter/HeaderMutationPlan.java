@@ -0,0 +1,87 @@
+package com.nnipa.gateway.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request header changes collected from several filters for one exchange
+ * Filters record what they want set or removed; HeaderMutationFilter applies
+ * everything in a single request mutation just before the request is proxied,
+ * instead of each filter copying the header map and rebuilding the exchange.
+ * Operations are applied in the order they were recorded.
+ */
+public final class HeaderMutationPlan {
+
+    private static final String ATTRIBUTE = HeaderMutationPlan.class.getName();
+
+    private final List<String> names = new ArrayList<>(8);
+    private final List<String> values = new ArrayList<>(8);
+
+    private HeaderMutationPlan() {
+    }
+
+    /**
+     * Plan for this exchange, created on first use
+     */
+    public static HeaderMutationPlan of(ServerWebExchange exchange) {
+        return (HeaderMutationPlan) exchange.getAttributes()
+                .computeIfAbsent(ATTRIBUTE, key -> new HeaderMutationPlan());
+    }
+
+    /**
+     * Plan for this exchange, or null if no filter contributed to it
+     */
+    static HeaderMutationPlan find(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * Value a request header will have once the plan is applied, or null if it will be absent
+     */
+    static String effectiveHeader(ServerWebExchange exchange, String name) {
+        HeaderMutationPlan plan = find(exchange);
+        if (plan != null) {
+            for (int i = plan.names.size() - 1; i >= 0; i--) {
+                if (plan.names.get(i).equalsIgnoreCase(name)) {
+                    return plan.values.get(i);
+                }
+            }
+        }
+        return exchange.getRequest().getHeaders().getFirst(name);
+    }
+
+    /**
+     * Replace any value the header has; null values are ignored
+     */
+    public HeaderMutationPlan set(String name, String value) {
+        if (value != null) {
+            names.add(name);
+            values.add(value);
+        }
+        return this;
+    }
+
+    public HeaderMutationPlan remove(String name) {
+        names.add(name);
+        values.add(null);
+        return this;
+    }
+
+    boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    void applyTo(HttpHeaders headers) {
+        for (int i = 0; i < names.size(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                headers.set(names.get(i), value);
+            } else {
+                headers.remove(names.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.service.HedgingService;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hedged requests for latency-critical GET and HEAD routes
+ * If no response has arrived after the route's delay (a fixed delay, or by
+ * default the route's observed p95 upstream latency), a second attempt is
+ * sent, usually to another instance. Whichever response starts first is
+ * streamed to the client by NettyWriteResponseFilter as without hedging,
+ * and the other attempt is cancelled. Hedges are drawn from a budget proportional to the
+ * route's traffic, so a slow upstream sees at most a bounded amount of extra load.
+ * Place it after ConcurrencyLimit and any path rewrites; each attempt runs
+ * the rest of the chain on its own, including an UpstreamRetry that follows.
+ */
+@Slf4j
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    private final HedgingService hedgingService;
+
+    public HedgingGatewayFilterFactory(HedgingService hedgingService) {
+        super(Config.class);
+        this.hedgingService = hedgingService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+                return chain.filter(exchange);
+            }
+
+            HedgingService.RouteHedging hedging = hedgingService.forRoute(routeId(exchange), config.getPercentile());
+            hedging.onRequest();
+            Duration delay = hedging.hedgeDelay(config.getDelay());
+            if (delay == null) {
+                // Still learning the route's latency: proxy as usual and record it
+                long start = System.nanoTime();
+                return chain.filter(exchange)
+                        .doOnSuccess(v -> hedging.recordLatency(System.nanoTime() - start));
+            }
+
+            // A primary that fails before the delay is not hedged; the failure is returned as without hedging
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+            Mono<Attempt> primary = attempt(exchange, chain, hedging, false)
+                    .doOnError(e -> primaryFailed.tryEmitValue(Boolean.TRUE));
+            Mono<Attempt> hedge = Mono.delay(delay)
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(tick -> hedging.tryHedge())
+                    .flatMap(tick -> attempt(exchange, chain, hedging, true));
+
+            // next() cancels the slower attempt; errors only surface once both attempts have failed
+            return Flux.mergeDelayError(2, primary, hedge)
+                    .next()
+                    .doOnDiscard(Attempt.class, Attempt::release)
+                    .onErrorMap(Exceptions::isMultiple, e -> Exceptions.unwrapMultiple(e).get(0))
+                    .flatMap(winner -> {
+                        if (winner.hedge()) {
+                            hedging.onHedgeWon();
+                        }
+                        return write(exchange, winner.exchange());
+                    });
+        };
+    }
+
+    /**
+     * Run the rest of the chain on a copy of the exchange, up to the upstream response headers
+     */
+    private Mono<Attempt> attempt(ServerWebExchange exchange, GatewayFilterChain chain,
+                                  HedgingService.RouteHedging hedging, boolean hedge) {
+        return Mono.defer(() -> {
+            AttemptExchange attempt = new AttemptExchange(exchange);
+            long start = System.nanoTime();
+            return chain.filter(attempt)
+                    .doOnSuccess(v -> hedging.recordLatency(System.nanoTime() - start))
+                    .thenReturn(new Attempt(attempt, hedge));
+        });
+    }
+
+    /**
+     * Copy the winning attempt's status, headers and attributes (upstream connection, timing,
+     * request URL) to the exchange, leaving its body to NettyWriteResponseFilter
+     * Headers already set for this exchange (correlation ID, rate limits) take precedence.
+     */
+    private Mono<Void> write(ServerWebExchange exchange, AttemptExchange winner) {
+        exchange.getAttributes().putAll(winner.getAttributes());
+        AttemptResponse attemptResponse = winner.getResponse();
+        ServerHttpResponse target = exchange.getResponse();
+        target.setStatusCode(attemptResponse.getStatusCode());
+        HttpHeaders headers = target.getHeaders();
+        attemptResponse.getHeaders().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        byte[] body = attemptResponse.getBody();
+        // Written by a filter rather than proxied (a rejection, a forward: fallback)
+        return body != null ? target.writeWith(Mono.just(target.bufferFactory().wrap(body))) : Mono.empty();
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    private record Attempt(AttemptExchange exchange, boolean hedge) {
+
+        /**
+         * Close the upstream connection of an attempt that lost after receiving its response
+         */
+        void release() {
+            Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+            if (connection != null && !connection.isDisposed()) {
+                connection.dispose();
+            }
+        }
+    }
+
+    /**
+     * The exchange as one attempt sees it: its own attributes, so routing state is
+     * not shared between attempts, and its own response
+     */
+    private static final class AttemptExchange extends ServerWebExchangeDecorator {
+
+        private final Map<String, Object> attributes;
+        private final AttemptResponse response;
+
+        AttemptExchange(ServerWebExchange delegate) {
+            super(delegate);
+            this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+            this.response = new AttemptResponse(delegate.getResponse());
+        }
+
+        @Override
+        public AttemptResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getAttribute(String name) {
+            return (T) attributes.get(name);
+        }
+    }
+
+    /**
+     * Holds one attempt's status and headers without touching the real response
+     * The proxied body stays on the attempt's upstream connection; only bodies
+     * written by filters themselves are held here.
+     */
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode status;
+        private byte[] body;
+
+        AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .doOnNext(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        this.body = bytes;
+                    })
+                    .then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+
+    public static class Config {
+        private Duration delay;
+        private double percentile = 0.95;
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public void setDelay(Duration delay) {
+            this.delay = delay;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+    }
+}
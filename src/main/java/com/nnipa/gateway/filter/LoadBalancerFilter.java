@@ -0,0 +1,87 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.exception.ErrorResponseWriter;
+import com.nnipa.gateway.service.LoadBalancerService;
+import com.nnipa.gateway.service.UpstreamInstance;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+
+/**
+ * Resolves lb://{service} route URIs to an instance chosen by LoadBalancerService
+ * Each request's outcome is reported back: connection errors, timeouts and
+ * 502/503/504 count towards ejecting the instance, everything else feeds its
+ * latency. Cancelled requests only free their slot.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoadBalancerFilter implements GlobalFilter, Ordered {
+
+    private static final ErrorResponseWriter.Template NO_INSTANCES = ErrorResponseWriter.Template.of(
+            HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", "No instances available for the service");
+
+    private final LoadBalancerService loadBalancerService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || !"lb".equals(url.getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        ServerWebExchangeUtils.addOriginalRequestUrl(exchange, url);
+        UpstreamInstance instance = loadBalancerService.choose(url.getHost());
+        if (instance == null) {
+            log.warn("No instances configured for service {}", url.getHost());
+            return ErrorResponseWriter.write(exchange, NO_INSTANCES);
+        }
+
+        URI instanceUri = instance.getUri();
+        URI requestUrl = UriComponentsBuilder.fromUri(url)
+                .scheme(instanceUri.getScheme())
+                .host(instanceUri.getHost())
+                .port(instanceUri.getPort())
+                .build(true)
+                .toUri();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, requestUrl);
+
+        long startTime = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        // A client that went away or a hedge that lost; must not reset the failure count
+                        loadBalancerService.release(instance);
+                    } else {
+                        loadBalancerService.release(instance, System.nanoTime() - startTime,
+                                succeeded(exchange, signal));
+                    }
+                });
+    }
+
+    private static boolean succeeded(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.ON_ERROR) {
+            return false;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status == null || !(status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    @Override
+    public int getOrder() {
+        // Where Spring Cloud LoadBalancer's filter would run: after RouteToRequestUrlFilter, before routing
+        return 10150;
+    }
+}
@@ -1,52 +1,70 @@
 package com.nnipa.gateway.filter;
 
+import com.nnipa.gateway.logging.AccessLogRecord;
+import com.nnipa.gateway.logging.AccessLogWriter;
+import com.nnipa.gateway.util.CorrelationContext;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.net.InetSocketAddress;
 
 /**
- * Global filter for logging requests and responses
+ * Global filter for access logging
+ * Captures one record per exchange and hands it to the asynchronous access
+ * log writer; nothing is formatted or written on the event loop.
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class LoggingFilter implements GlobalFilter, Ordered {
 
+    private final AccessLogWriter accessLogWriter;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startTime = System.nanoTime();
+
+        return chain.filter(exchange)
+                .doOnSuccess(aVoid -> log(exchange, startTime, null))
+                .doOnError(throwable -> log(exchange, startTime,
+                        throwable.getClass().getSimpleName() + ": " + throwable.getMessage()))
+                .doOnCancel(() -> log(exchange, startTime, "cancelled"));
+    }
+
+    private void log(ServerWebExchange exchange, long startTime, String error) {
+        long durationNanos = System.nanoTime() - startTime;
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode != null ? statusCode.value() : 0;
+
+        if (!accessLogWriter.shouldLog(status, error != null)) {
+            return;
+        }
+
         ServerHttpRequest request = exchange.getRequest();
-        String correlationId = request.getHeaders().getFirst("X-Correlation-Id");
-        Instant startTime = Instant.now();
-
-        String path = request.getPath().toString();
-        String method = request.getMethod().toString();
-        String query = request.getURI().getRawQuery();
-
-        log.info("[{}] Incoming request: {} {} {}",
-                correlationId,
-                method,
-                path,
-                query != null ? "?" + query : "");
-
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-            ServerHttpResponse response = exchange.getResponse();
-            Duration duration = Duration.between(startTime, Instant.now());
-
-            log.info("[{}] Response: {} {} - Status: {} - Duration: {}ms",
-                    correlationId,
-                    method,
-                    path,
-                    response.getStatusCode(),
-                    duration.toMillis());
-        }));
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+
+        accessLogWriter.submit(new AccessLogRecord(
+                System.currentTimeMillis(),
+                CorrelationContext.get(exchange),
+                request.getMethod().name(),
+                request.getPath().value(),
+                route != null ? route.getId() : null,
+                status,
+                durationNanos,
+                remoteAddress != null && remoteAddress.getAddress() != null
+                        ? remoteAddress.getAddress().getHostAddress() : null,
+                error));
     }
 
     @Override
@@ -54,4 +72,4 @@ public class LoggingFilter implements GlobalFilter, Ordered {
         // Run after correlation ID filter but before other filters
         return Ordered.HIGHEST_PRECEDENCE + 1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.service.MetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Global filter recording per-route request metrics
+ * Upstream time is measured by UpstreamTimingFilter right around the routing
+ * filter; whatever remains of the total is gateway overhead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetricsFilter implements GlobalFilter, Ordered {
+
+    static final String UPSTREAM_NANOS_ATTR = MetricsFilter.class.getName() + ".upstreamNanos";
+
+    private final MetricsService metricsService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startTime = System.nanoTime();
+
+        return chain.filter(exchange).doFinally(signal -> {
+            long duration = System.nanoTime() - startTime;
+            Long upstream = exchange.getAttribute(UPSTREAM_NANOS_ATTR);
+
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+
+            metricsService.recordRequest(
+                    route != null ? route.getId() : "unmatched",
+                    exchange.getRequest().getMethod().name(),
+                    status != null ? status.value() : 0,
+                    duration,
+                    upstream != null ? upstream : -1);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        // Run right after correlation and logging so the whole filter chain is timed
+        return Ordered.HIGHEST_PRECEDENCE + 2;
+    }
+}
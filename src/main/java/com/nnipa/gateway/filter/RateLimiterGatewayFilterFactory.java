@@ -1,16 +1,24 @@
 package com.nnipa.gateway.filter;
 
+import com.nnipa.gateway.exception.ErrorResponseWriter;
+import com.nnipa.gateway.model.RateLimitDecision;
+import com.nnipa.gateway.model.RateLimitKey;
+import com.nnipa.gateway.service.DistributedRateLimitService;
 import com.nnipa.gateway.service.RateLimitService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Rate limiting filter factory for per-route configuration
  */
@@ -18,11 +26,19 @@ import reactor.core.publisher.Mono;
 @Component
 public class RateLimiterGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimiterGatewayFilterFactory.Config> {
 
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ErrorResponseWriter.Template RATE_LIMIT_EXCEEDED = ErrorResponseWriter.Template.of(
+            HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded", "Too many requests. Please try again later.");
+
     private final RateLimitService rateLimitService;
+    private final DistributedRateLimitService distributedRateLimitService;
 
-    public RateLimiterGatewayFilterFactory(RateLimitService rateLimitService) {
+    public RateLimiterGatewayFilterFactory(RateLimitService rateLimitService,
+                                           DistributedRateLimitService distributedRateLimitService) {
         super(Config.class);
         this.rateLimitService = rateLimitService;
+        this.distributedRateLimitService = distributedRateLimitService;
     }
 
     @Override
@@ -33,45 +49,66 @@ public class RateLimiterGatewayFilterFactory extends AbstractGatewayFilterFactor
             // Extract tenant ID for tenant-specific rate limiting
             String tenantId = request.getHeaders().getFirst("X-Tenant-Id");
             String userId = request.getHeaders().getFirst("X-User-Id");
-            String clientIp = getClientIp(request);
 
-            // Build rate limit key
-            String rateLimitKey = buildRateLimitKey(tenantId, userId, clientIp);
+            // Build rate limit key, scoped to this route so each route keeps its own limits
+            RateLimitKey rateLimitKey = buildRateLimitKey(routeId(exchange), tenantId, userId, request);
 
-            // Check rate limit
-            boolean allowed = rateLimitService.allowRequest(
-                    rateLimitKey,
-                    config.getRequestsPerSecond(),
-                    config.getBurstCapacity()
-            );
-
-            if (!allowed) {
-                log.warn("Rate limit exceeded for key: {}", rateLimitKey);
-                return onRateLimitExceeded(exchange);
-            }
+            // Check rate limit against the node-local or cluster-wide bucket in a single probe
+            RateLimitDecision decision = config.getMode() == Mode.DISTRIBUTED
+                    ? distributedRateLimitService.tryConsume(
+                            rateLimitKey, config.getRequestsPerSecond(), config.getBurstCapacity())
+                    : rateLimitService.tryConsume(
+                            rateLimitKey, config.getRequestsPerSecond(), config.getBurstCapacity());
 
             // Add rate limit headers to response
-            ServerHttpResponse response = exchange.getResponse();
-            response.getHeaders().add("X-RateLimit-Limit", String.valueOf(config.getRequestsPerSecond()));
-            response.getHeaders().add("X-RateLimit-Remaining",
-                    String.valueOf(rateLimitService.getRemainingTokens(rateLimitKey)));
-            response.getHeaders().add("X-RateLimit-Reset",
-                    String.valueOf(rateLimitService.getResetTime(rateLimitKey)));
+            addRateLimitHeaders(exchange.getResponse().getHeaders(), config, decision);
+
+            if (!decision.allowed()) {
+                log.debug("Rate limit exceeded for key: {}", rateLimitKey);
+                return onRateLimitExceeded(exchange, decision);
+            }
 
             return chain.filter(exchange);
         };
     }
 
-    private String buildRateLimitKey(String tenantId, String userId, String clientIp) {
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    private RateLimitKey buildRateLimitKey(String routeId, String tenantId, String userId, ServerHttpRequest request) {
         if (tenantId != null && !tenantId.isEmpty()) {
-            return "tenant:" + tenantId;
+            return RateLimitKey.tenant(routeId, tenantId);
         } else if (userId != null && !userId.isEmpty()) {
-            return "user:" + userId;
+            return RateLimitKey.user(routeId, userId);
         } else {
-            return "ip:" + clientIp;
+            return RateLimitKey.ip(routeId, getClientIp(request));
         }
     }
 
+    /**
+     * Standard RateLimit-* headers, plus the legacy X-RateLimit-* ones existing clients read
+     */
+    private void addRateLimitHeaders(HttpHeaders headers, Config config, RateLimitDecision decision) {
+        String limit = String.valueOf(config.getBurstCapacity());
+        String remaining = String.valueOf(decision.remaining());
+        long resetSeconds = toSecondsRoundedUp(decision.nanosToReset());
+
+        headers.set("RateLimit-Limit", limit);
+        headers.set("RateLimit-Remaining", remaining);
+        headers.set("RateLimit-Reset", String.valueOf(resetSeconds));
+
+        headers.set("X-RateLimit-Limit", String.valueOf(config.getRequestsPerSecond()));
+        headers.set("X-RateLimit-Remaining", remaining);
+        headers.set("X-RateLimit-Reset",
+                String.valueOf(System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(decision.nanosToReset())));
+    }
+
+    private static long toSecondsRoundedUp(long nanos) {
+        return (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+
     private String getClientIp(ServerHttpRequest request) {
         String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -87,20 +124,21 @@ public class RateLimiterGatewayFilterFactory extends AbstractGatewayFilterFactor
                 request.getRemoteAddress().getAddress().getHostAddress() : "unknown";
     }
 
-    private Mono<Void> onRateLimitExceeded(ServerWebExchange exchange) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-        response.getHeaders().add("Content-Type", "application/json");
+    private Mono<Void> onRateLimitExceeded(ServerWebExchange exchange, RateLimitDecision decision) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, toSecondsRoundedUp(decision.nanosToRefill()))));
 
-        String body = "{\"error\": \"Rate limit exceeded\", \"status\": 429, " +
-                "\"message\": \"Too many requests. Please try again later.\"}";
+        return ErrorResponseWriter.write(exchange, RATE_LIMIT_EXCEEDED);
+    }
 
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    public enum Mode {
+        LOCAL, DISTRIBUTED
     }
 
     public static class Config {
         private int requestsPerSecond = 100;
         private int burstCapacity = 200;
+        private Mode mode = Mode.LOCAL;
 
         public int getRequestsPerSecond() {
             return requestsPerSecond;
@@ -117,5 +155,13 @@ public class RateLimiterGatewayFilterFactory extends AbstractGatewayFilterFactor
         public void setBurstCapacity(int burstCapacity) {
             this.burstCapacity = burstCapacity;
         }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
     }
 }
\ No newline at end of file
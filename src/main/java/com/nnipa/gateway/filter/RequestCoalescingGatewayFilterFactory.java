@@ -0,0 +1,149 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.model.CachedResponse;
+import com.nnipa.gateway.service.RequestCoalescingService;
+import com.nnipa.gateway.service.RequestCoalescingService.SharedCall;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Request coalescing filter for hot GET resources
+ * Identical concurrent GETs (same route, URI and key headers) share one
+ * upstream exchange: the first request proxies as usual, and requests
+ * arriving before its response starts get a copy of that response instead
+ * of calling the upstream themselves (see RequestCoalescingService). The
+ * first response is only copied when such requests are waiting, and only
+ * up to max-body-size; they proxy on their own when it cannot be shared.
+ * Key headers default to the ones that decide what a caller may see, so
+ * requests are only merged when their answers are interchangeable.
+ * Place it after AuthenticationFilter and after ResponseCache, so only cache
+ * misses that passed authentication are coalesced.
+ */
+@Slf4j
+@Component
+public class RequestCoalescingGatewayFilterFactory extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+    private final RequestCoalescingService coalescingService;
+
+    public RequestCoalescingGatewayFilterFactory(RequestCoalescingService coalescingService) {
+        super(Config.class);
+        this.coalescingService = coalescingService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (ResponseDecoratorFilter.Registering) (exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String key = CachedResponses.requestKey(exchange, config.getKeyHeaders());
+            RequestCoalescingService.Membership membership = coalescingService.join(key);
+            SharedCall call = membership.call();
+            if (!membership.leader()) {
+                Duration timeout = config.getTimeout() != null ? config.getTimeout() : coalescingService.getDefaultTimeout();
+                // Replay the shared response, or proxy as usual if the leader could not share it
+                return call.response(timeout)
+                        .map(response -> CachedResponses.write(exchange, response))
+                        .defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+                        .flatMap(Function.identity());
+            }
+
+            ResponseDecoratorFilter.register(exchange,
+                    response -> new SharingResponse(response, call, coalescingService.getMaxBodyBytes()));
+            return chain.filter(exchange)
+                    .doOnError(call::fail)
+                    .doOnCancel(call::abandon);
+        };
+    }
+
+    /**
+     * Copies the leader's response for its followers as it streams to the leader's client
+     */
+    private static class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final SharedCall call;
+        private final long maxBodyBytes;
+
+        SharingResponse(ServerHttpResponse delegate, SharedCall call, long maxBodyBytes) {
+            super(delegate);
+            this.call = call;
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!call.close() || getHeaders().getContentLength() > maxBodyBytes) {
+                call.abandon();
+                return super.writeWith(body);
+            }
+
+            HttpStatusCode status = getStatusCode();
+            // Taken before the inner decorators run: Compression rewrites the shared headers for its own output
+            HttpHeaders headers = CachedResponses.snapshotHeaders(getHeaders());
+            BodyCapture capture = new BodyCapture(maxBodyBytes);
+            Flux<DataBuffer> tapped = Flux.<DataBuffer>from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = capture.toByteArray();
+                        if (bytes != null) {
+                            call.share(new CachedResponse(status != null ? status : HttpStatus.OK, headers, bytes,
+                                    List.of(), System.currentTimeMillis(), 0));
+                        }
+                    })
+                    .doFinally(signal -> call.abandon());
+            return super.writeWith(tapped);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Streamed responses (SSE, NDJSON) are not shared
+            call.abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            call.abandon();
+            return super.setComplete();
+        }
+    }
+
+    public static class Config {
+        private Duration timeout;
+        private List<String> keyHeaders = List.of(HttpHeaders.AUTHORIZATION, "X-Tenant-Id", "X-User-Id",
+                HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE);
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+    }
+}
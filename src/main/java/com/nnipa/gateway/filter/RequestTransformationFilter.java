@@ -9,8 +9,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-
 /**
  * Global filter for request transformation
  * Adds common headers and metadata to all requests
@@ -23,33 +21,18 @@ public class RequestTransformationFilter implements GlobalFilter, Ordered {
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
 
-        // Add common headers including timestamp
-        ServerHttpRequest mutatedRequest = request.mutate()
-                .header("X-Gateway-Timestamp", String.valueOf(System.currentTimeMillis()))
-                .header("X-Gateway-Version", "v1")
-                .header("X-Original-Host", request.getHeaders().getFirst("Host"))
-                .header("X-Original-Path", request.getPath().toString())
-                .header("X-Original-Method", request.getMethod().toString())
-                .build();
-
-        // Remove sensitive headers before forwarding
-        mutatedRequest = removeSensitiveHeaders(mutatedRequest);
-
-        ServerWebExchange mutatedExchange = exchange.mutate()
-                .request(mutatedRequest)
-                .build();
-
-        return chain.filter(mutatedExchange);
-    }
-
-    private ServerHttpRequest removeSensitiveHeaders(ServerHttpRequest request) {
-        return request.mutate()
-                .headers(headers -> {
-                    // Remove sensitive headers that shouldn't be forwarded
-                    headers.remove("Cookie");
-                    headers.remove("Set-Cookie");
-                })
-                .build();
+        // Add common headers including timestamp, and remove sensitive headers
+        // that shouldn't be forwarded; applied together by HeaderMutationFilter
+        HeaderMutationPlan.of(exchange)
+                .set("X-Gateway-Timestamp", String.valueOf(System.currentTimeMillis()))
+                .set("X-Gateway-Version", "v1")
+                .set("X-Original-Host", request.getHeaders().getFirst("Host"))
+                .set("X-Original-Path", request.getPath().value())
+                .set("X-Original-Method", request.getMethod().name())
+                .remove("Cookie")
+                .remove("Set-Cookie");
+
+        return chain.filter(exchange);
     }
 
     @Override
@@ -57,4 +40,4 @@ public class RequestTransformationFilter implements GlobalFilter, Ordered {
         // Run after authentication but before routing
         return 10;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.model.CachedResponse;
+import com.nnipa.gateway.service.ResponseCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response cache filter for idempotent GET routes
+ * Serves fresh cached responses without calling the upstream and stores
+ * cacheable 200 responses as they stream through. Cacheability follows the
+ * upstream's Cache-Control (no-store, private and no-cache are never stored,
+ * s-maxage/max-age set the lifetime, the route ttl applies otherwise) and
+ * Vary. Requests sending Cache-Control no-cache are served fresh from the
+ * upstream and refresh the entry; no-store skips the cache entirely.
+ * Place it after AuthenticationFilter so rejected requests never reach the
+ * cache and key headers such as X-Tenant-Id are already resolved; without
+ * key headers, authorized requests only share responses marked public.
+ */
+@Slf4j
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final ResponseCacheService responseCacheService;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheService responseCacheService) {
+        super(Config.class);
+        this.responseCacheService = responseCacheService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (ResponseDecoratorFilter.Registering) (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!responseCacheService.isEnabled() || request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String requestCacheControl = String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.CACHE_CONTROL))
+                    .toLowerCase(Locale.ROOT);
+            if (requestCacheControl.contains("no-store")) {
+                responseCacheService.recordBypass();
+                return chain.filter(exchange);
+            }
+
+            String primaryKey = CachedResponses.requestKey(exchange, config.getKeyHeaders());
+            if (requestCacheControl.contains("no-cache") || "no-cache".equals(request.getHeaders().getPragma())) {
+                responseCacheService.recordBypass();
+            } else {
+                CachedResponse cached = responseCacheService.lookup(primaryKey,
+                        name -> HeaderMutationPlan.effectiveHeader(exchange, name));
+                if (cached != null) {
+                    return writeCached(exchange, cached);
+                }
+            }
+
+            exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            Duration ttl = config.getTtl() != null ? config.getTtl() : responseCacheService.getDefaultTtl();
+            // Without a per-caller key, authorized responses are only shared if the upstream marks them public
+            boolean requirePublic = config.getKeyHeaders().isEmpty()
+                    && request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION);
+            ResponseDecoratorFilter.register(exchange,
+                    response -> new CachingResponse(response, exchange, primaryKey, ttl.toNanos(), requirePublic));
+            return chain.filter(exchange);
+        };
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.ageSeconds(System.currentTimeMillis())));
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        return CachedResponses.write(exchange, cached);
+    }
+
+    /**
+     * Freshness lifetime allowed by the response, or -1 if it must not be stored
+     */
+    private static long freshnessNanos(HttpHeaders headers, long defaultTtlNanos, boolean requirePublic) {
+        boolean isPublic = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (String header : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : header.split(",")) {
+                String value = directive.trim().toLowerCase(Locale.ROOT);
+                if (value.equals("no-store") || value.startsWith("no-cache") || value.startsWith("private")) {
+                    return -1;
+                } else if (value.equals("public")) {
+                    isPublic = true;
+                } else if (value.startsWith("s-maxage=")) {
+                    sharedMaxAge = parseSeconds(value.substring(9));
+                } else if (value.startsWith("max-age=")) {
+                    maxAge = parseSeconds(value.substring(8));
+                }
+            }
+        }
+        if (requirePublic && !isPublic && sharedMaxAge < 0) {
+            return -1;
+        }
+        long seconds = sharedMaxAge >= 0 ? sharedMaxAge : maxAge;
+        if (seconds < 0) {
+            return defaultTtlNanos > 0 ? defaultTtlNanos : -1;
+        }
+        return seconds > 0 ? TimeUnit.SECONDS.toNanos(seconds) : -1;
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Request headers named by Vary, or null if the response varies on everything
+     */
+    private static List<String> varyHeaders(HttpHeaders headers) {
+        List<String> vary = new ArrayList<>(2);
+        for (String header : headers.getOrEmpty(HttpHeaders.VARY)) {
+            for (String name : header.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.equals("*")) {
+                    return null;
+                }
+                if (!trimmed.isEmpty()) {
+                    vary.add(trimmed.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        vary.sort(null);
+        return List.copyOf(vary);
+    }
+
+    /**
+     * Copies a cacheable response body as it is written and stores it once complete
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String primaryKey;
+        private final long defaultTtlNanos;
+        private final boolean requirePublic;
+
+        CachingResponse(ServerHttpResponse delegate, ServerWebExchange exchange, String primaryKey,
+                        long defaultTtlNanos, boolean requirePublic) {
+            super(delegate);
+            this.exchange = exchange;
+            this.primaryKey = primaryKey;
+            this.defaultTtlNanos = defaultTtlNanos;
+            this.requirePublic = requirePublic;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            long maxEntryBytes = responseCacheService.getMaxEntryBytes();
+            HttpStatusCode status = getStatusCode();
+            if (status == null || status.value() != HttpStatus.OK.value()
+                    || headers.containsKey(HttpHeaders.SET_COOKIE)
+                    || headers.getContentLength() > maxEntryBytes) {
+                return super.writeWith(body);
+            }
+
+            long ttlNanos = freshnessNanos(headers, defaultTtlNanos, requirePublic);
+            List<String> vary = varyHeaders(headers);
+            if (ttlNanos <= 0 || vary == null) {
+                return super.writeWith(body);
+            }
+
+            // Taken before the inner decorators run: Compression rewrites the shared headers for its own output
+            HttpHeaders snapshot = CachedResponses.snapshotHeaders(headers);
+            BodyCapture capture = new BodyCapture(maxEntryBytes);
+            Flux<DataBuffer> tapped = Flux.<DataBuffer>from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = capture.toByteArray();
+                        if (bytes != null) {
+                            responseCacheService.store(primaryKey,
+                                    name -> HeaderMutationPlan.effectiveHeader(exchange, name),
+                                    new CachedResponse(status, snapshot, bytes, vary,
+                                            System.currentTimeMillis(), ttlNanos));
+                        }
+                    });
+            return super.writeWith(tapped);
+        }
+    }
+
+    public static class Config {
+        private Duration ttl;
+        private List<String> keyHeaders = List.of();
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.nnipa.gateway.filter;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming encoder for one response body
+ * Runs Netty's encoders in an EmbeddedChannel, as HttpContentCompressor does:
+ * each chunk is compressed as it passes through, input and output stay in
+ * pooled ByteBufs, and only the encoder's window is kept between chunks.
+ * Not thread-safe; a Reactor pipeline delivers chunks one at a time.
+ */
+final class ResponseCompressor {
+
+    enum ContentEncoding {
+        // Preferred in this order when the client weighs several equally
+        ZSTD("zstd"), GZIP("gzip"), DEFLATE("deflate");
+
+        private final String token;
+
+        ContentEncoding(String token) {
+            this.token = token;
+        }
+
+        String token() {
+            return token;
+        }
+
+        ChannelHandler newEncoder(int level) {
+            return switch (this) {
+                case ZSTD -> new ZstdEncoder();
+                case GZIP -> ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, level);
+                case DEFLATE -> ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, level);
+            };
+        }
+    }
+
+    private final EmbeddedChannel channel;
+    private final DataBufferFactory bufferFactory;
+
+    private long inputBytes;
+    private long outputBytes;
+    private long encodeNanos;
+
+    ResponseCompressor(ContentEncoding encoding, int level, DataBufferFactory bufferFactory) {
+        this.channel = new EmbeddedChannel(encoding.newEncoder(level));
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * Compress one chunk of the body; releases it and returns whatever output the encoder produced
+     */
+    List<DataBuffer> encode(DataBuffer buffer) {
+        long start = System.nanoTime();
+        ByteBuf input = toByteBuf(buffer);
+        if (!input.isReadable()) {
+            input.release();
+            return List.of();
+        }
+        inputBytes += input.readableBytes();
+        channel.writeOutbound(input);
+        List<DataBuffer> output = drain();
+        encodeNanos += System.nanoTime() - start;
+        return output;
+    }
+
+    /**
+     * Flush the encoder and return the end of the compressed stream (e.g. the gzip trailer)
+     */
+    List<DataBuffer> finish() {
+        long start = System.nanoTime();
+        channel.finish();
+        List<DataBuffer> output = drain();
+        encodeNanos += System.nanoTime() - start;
+        return output;
+    }
+
+    /**
+     * Release anything still held by the encoder, e.g. after the client went away
+     */
+    void release() {
+        channel.finishAndReleaseAll();
+    }
+
+    long getInputBytes() {
+        return inputBytes;
+    }
+
+    long getOutputBytes() {
+        return outputBytes;
+    }
+
+    long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    private List<DataBuffer> drain() {
+        List<DataBuffer> output = new ArrayList<>(2);
+        ByteBuf compressed;
+        while ((compressed = channel.readOutbound()) != null) {
+            if (!compressed.isReadable()) {
+                compressed.release();
+                continue;
+            }
+            outputBytes += compressed.readableBytes();
+            output.add(toDataBuffer(compressed));
+        }
+        return output;
+    }
+
+    private static ByteBuf toByteBuf(DataBuffer buffer) {
+        if (buffer instanceof NettyDataBuffer nettyBuffer) {
+            return nettyBuffer.getNativeBuffer();
+        }
+        ByteBuf copy = ByteBufAllocator.DEFAULT.buffer(buffer.readableByteCount());
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return copy.writeBytes(bytes);
+    }
+
+    private DataBuffer toDataBuffer(ByteBuf byteBuf) {
+        if (bufferFactory instanceof NettyDataBufferFactory nettyFactory) {
+            return nettyFactory.wrap(byteBuf);
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(byteBuf.readableBytes());
+        buffer.write(byteBuf.nioBuffer());
+        byteBuf.release();
+        return buffer;
+    }
+}
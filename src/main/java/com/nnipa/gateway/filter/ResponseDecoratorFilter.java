@@ -0,0 +1,115 @@
+package com.nnipa.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Applies response decorators registered by route filters to the proxied body
+ * NettyWriteResponseFilter writes the upstream body into the response of the
+ * exchange it was handed, and it runs before every route filter, so a
+ * decorator a route filter installs by mutating the exchange never sees the
+ * body. Filters without a place to keep in the route are ordered just inside
+ * it instead, as ModifyResponseBody is (see Compression). Filters that must
+ * stay where they are, such as ResponseCache behind AuthenticationFilter,
+ * register their decorator here; this filter takes the same slot and hands
+ * NettyWriteResponseFilter a response that applies them when the body is
+ * written, in registration order, the last registered outermost.
+ */
+@Component
+public class ResponseDecoratorFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final String DECORATORS_ATTR = ResponseDecoratorFilter.class.getName() + ".decorators";
+
+    /**
+     * Route filter that may register decorators; routes without one are passed through untouched
+     */
+    interface Registering extends GatewayFilter {
+    }
+
+    /**
+     * Decorate the response body written for this exchange from here on
+     */
+    static void register(ServerWebExchange exchange, UnaryOperator<ServerHttpResponse> decorator) {
+        List<UnaryOperator<ServerHttpResponse>> registered = exchange.getAttributeOrDefault(DECORATORS_ATTR, List.of());
+        // Replaced rather than appended, since Hedging attempts start from a copy of the attributes
+        List<UnaryOperator<ServerHttpResponse>> decorators = new ArrayList<>(registered.size() + 1);
+        decorators.addAll(registered);
+        decorators.add(decorator);
+        exchange.getAttributes().put(DECORATORS_ATTR, decorators);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !hasRegisteringFilter(route)) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new DeferredResponse(exchange)).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static boolean hasRegisteringFilter(Route route) {
+        for (GatewayFilter filter : route.getFilters()) {
+            GatewayFilter delegate = filter instanceof OrderedGatewayFilter ordered ? ordered.getDelegate() : filter;
+            if (delegate instanceof Registering) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the registered decorators when the body is written, after the route filters ran
+     */
+    private static final class DeferredResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+
+        DeferredResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return decorated().writeWith(body);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return decorated().writeAndFlushWith(body);
+        }
+
+        private ServerHttpResponse decorated() {
+            List<UnaryOperator<ServerHttpResponse>> decorators = exchange.getAttributeOrDefault(DECORATORS_ATTR, List.of());
+            ServerHttpResponse response = getDelegate();
+            for (UnaryOperator<ServerHttpResponse> decorator : decorators) {
+                response = decorator.apply(response);
+            }
+            return response;
+        }
+    }
+}
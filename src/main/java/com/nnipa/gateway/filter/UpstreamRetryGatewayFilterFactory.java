@@ -0,0 +1,217 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.service.RetryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Budgeted, jittered retries of failed upstream calls
+ * Only idempotent methods (GET, HEAD, OPTIONS, PUT, DELETE) and requests
+ * carrying an Idempotency-Key are retried, after connection errors,
+ * timeouts or one of the configured statuses (502, 503, 504 by default).
+ * Backoff uses decorrelated jitter, retries draw on the upstream's retry
+ * budget, and no retry is made while the route's circuit breaker is open or
+ * half-open. Request bodies are cached so they can be sent again.
+ * Place it after CircuitBreaker and AuthenticationFilter, so the circuit
+ * breaker sees one call per request and retries skip authentication.
+ */
+@Slf4j
+@Component
+public class UpstreamRetryGatewayFilterFactory extends AbstractGatewayFilterFactory<UpstreamRetryGatewayFilterFactory.Config> {
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private final RetryService retryService;
+
+    public UpstreamRetryGatewayFilterFactory(RetryService retryService) {
+        super(Config.class);
+        this.retryService = retryService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            RetryService.UpstreamRetries retries = retryService.forUpstream(upstream(exchange));
+            retries.onRequest();
+
+            ServerHttpRequest request = exchange.getRequest();
+            if (config.getMaxAttempts() <= 1 || !isRetryable(request)) {
+                return chain.filter(exchange);
+            }
+
+            String circuitBreaker = config.getCircuitBreaker() != null ? config.getCircuitBreaker() : routeId(exchange);
+            if (!hasBody(request)) {
+                return execute(exchange, chain, config, retries, circuitBreaker, 1, config.getBaseDelay());
+            }
+            return ServerWebExchangeUtils.cacheRequestBody(exchange, cachedRequest ->
+                    execute(exchange.mutate().request(cachedRequest).build(), chain, config, retries,
+                            circuitBreaker, 1, config.getBaseDelay()));
+        };
+    }
+
+    private Mono<Void> execute(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                               RetryService.UpstreamRetries retries, String circuitBreaker,
+                               int attempt, Duration previousDelay) {
+        return chain.filter(exchange)
+                .materialize()
+                .flatMap(signal -> {
+                    Throwable error = signal.getThrowable();
+                    boolean failed = error != null ? isRetryableError(error) : isRetryableResponse(exchange, config);
+                    if (!failed || attempt >= config.getMaxAttempts() || !mayRetry(retries, circuitBreaker)) {
+                        return error != null ? Mono.<Void>error(error) : Mono.<Void>empty();
+                    }
+
+                    Duration delay = retryService.backoff(config.getBaseDelay(), config.getMaxDelay(), previousDelay);
+                    log.debug("Retrying {} {} in {} ms (attempt {} of {})", exchange.getRequest().getMethod(),
+                            exchange.getRequest().getPath(), delay.toMillis(), attempt + 1, config.getMaxAttempts());
+                    reset(exchange);
+                    return Mono.delay(delay)
+                            .then(execute(exchange, chain, config, retries, circuitBreaker, attempt + 1, delay));
+                });
+    }
+
+    private boolean mayRetry(RetryService.UpstreamRetries retries, String circuitBreaker) {
+        if (!retryService.isCircuitClosed(circuitBreaker)) {
+            retries.onCircuitOpen();
+            return false;
+        }
+        return retries.tryRetry();
+    }
+
+    private static boolean isRetryable(ServerHttpRequest request) {
+        return IDEMPOTENT_METHODS.contains(request.getMethod())
+                || request.getHeaders().containsKey(IDEMPOTENCY_KEY_HEADER);
+    }
+
+    private static boolean hasBody(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    /**
+     * A status the route retries on, as long as nothing has been written to the client yet
+     */
+    private static boolean isRetryableResponse(ServerWebExchange exchange, Config config) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpStatusCode status = response.getStatusCode();
+        return status != null && !response.isCommitted() && config.getStatuses().contains(status.value());
+    }
+
+    /**
+     * Connection failures and timeouts, including the 504 NettyRoutingFilter raises for a response timeout
+     */
+    private static boolean isRetryableError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+            if (cause instanceof ResponseStatusException statusException
+                    && statusException.getStatusCode().value() == 504) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the failed upstream response so the next attempt is routed afresh
+     */
+    private static void reset(ServerWebExchange exchange) {
+        Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+            connection.dispose();
+        }
+        ServerWebExchangeUtils.reset(exchange);
+        exchange.getResponse().setStatusCode(null);
+    }
+
+    /**
+     * The lb:// service or host behind the route; its retry budget is shared by all routes to it
+     */
+    private static String upstream(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return "default";
+        }
+        URI uri = route.getUri();
+        return "lb".equals(uri.getScheme()) ? uri.getHost() : uri.getAuthority();
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : null;
+    }
+
+    public static class Config {
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private List<Integer> statuses = List.of(502, 503, 504);
+        private String circuitBreaker;
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getBaseDelay() {
+            return baseDelay;
+        }
+
+        public void setBaseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public List<Integer> getStatuses() {
+            return statuses;
+        }
+
+        public void setStatuses(List<Integer> statuses) {
+            this.statuses = statuses;
+        }
+
+        public String getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public void setCircuitBreaker(String circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+        }
+    }
+}
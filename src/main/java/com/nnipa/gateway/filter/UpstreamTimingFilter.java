@@ -0,0 +1,30 @@
+package com.nnipa.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures time spent in the routing filter, i.e. until the upstream response arrives
+ */
+@Component
+public class UpstreamTimingFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startTime = System.nanoTime();
+
+        // doOnTerminate fires before completion propagates, so MetricsFilter sees the value
+        return chain.filter(exchange).doOnTerminate(() ->
+                exchange.getAttributes().put(MetricsFilter.UPSTREAM_NANOS_ATTR, System.nanoTime() - startTime));
+    }
+
+    @Override
+    public int getOrder() {
+        // Run immediately before the Netty routing filter
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
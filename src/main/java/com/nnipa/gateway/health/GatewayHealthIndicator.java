@@ -1,55 +1,173 @@
 package com.nnipa.gateway.health;
 
-import lombok.RequiredArgsConstructor;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.actuate.health.Health;
-import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.time.Duration;
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Custom health indicator for gateway and downstream services
+ * Downstream services are derived from the configured routes and probed in
+ * parallel on a background schedule; health requests only read the latest
+ * snapshot, so probes never wait on downstream calls.
  */
+@Slf4j
 @Component
-@RequiredArgsConstructor
-public class GatewayHealthIndicator implements HealthIndicator {
+public class GatewayHealthIndicator implements ReactiveHealthIndicator {
 
-    private final WebClient.Builder webClientBuilder;
+    /**
+     * Route metadata key overriding the health path probed for that route's upstream
+     */
+    public static final String HEALTH_PATH_METADATA = "health-path";
+
+    private final RouteDefinitionLocator routeDefinitionLocator;
+    private final WebClient webClient;
+    private final ApiGatewayProperties.Health healthProperties;
+    private final ApiGatewayProperties.LoadBalancing loadBalancing;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), null);
+    private Disposable refresher;
+
+    public GatewayHealthIndicator(RouteDefinitionLocator routeDefinitionLocator,
+                                  WebClient.Builder webClientBuilder,
+                                  ApiGatewayProperties properties) {
+        this.routeDefinitionLocator = routeDefinitionLocator;
+        this.webClient = webClientBuilder.build();
+        this.healthProperties = properties.getHealth();
+        this.loadBalancing = properties.getLoadBalancing();
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher = Flux.interval(Duration.ZERO, healthProperties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
 
     @Override
-    public Health health() {
-        Map<String, Object> details = new HashMap<>();
+    public Mono<Health> health() {
+        Snapshot current = snapshot;
+
+        Map<String, Object> details = new LinkedHashMap<>();
         details.put("gateway", "UP");
         details.put("timestamp", System.currentTimeMillis());
+        details.putAll(current.services());
+        details.put("downstream", current.downstreamStatus());
+        if (current.checkedAt() != null) {
+            details.put("checkedAt", current.checkedAt().toString());
+            details.put("ageMs", Duration.between(current.checkedAt(), Instant.now()).toMillis());
+        }
+
+        // Downstream outages are reported in details only, they never take the gateway itself down
+        return Mono.just(Health.up().withDetails(details).build());
+    }
+
+    /**
+     * Probe every distinct upstream concurrently and publish the results as a new snapshot
+     */
+    Mono<Void> refresh() {
+        return routeDefinitionLocator.getRouteDefinitions()
+                .flatMapIterable(this::targets)
+                .collect(LinkedHashMap<String, Target>::new,
+                        (targets, target) -> targets.merge(target.base().getAuthority(), target,
+                                GatewayHealthIndicator::preferHealthPath))
+                .flatMapIterable(Map::values)
+                .flatMap(target -> probe(healthUrl(target))
+                        .map(status -> Map.entry(target.name(), status)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new)
+                .doOnNext(services -> snapshot = new Snapshot(Map.copyOf(services), Instant.now()))
+                .doOnError(e -> log.warn("Downstream health refresh failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Object> probe(String healthUrl) {
+        return webClient.get()
+                .uri(healthUrl)
+                .exchangeToMono(response -> response.releaseBody()
+                        .thenReturn(response.statusCode().is2xxSuccessful()))
+                .timeout(healthProperties.getTimeout())
+                .<Object>map(up -> up ? "UP" : "DOWN")
+                .onErrorReturn("DOWN");
+    }
+
+    /**
+     * Upstreams behind a route: its URI, or every instance of an lb:// service
+     */
+    private List<Target> targets(RouteDefinition route) {
+        URI uri = route.getUri();
+        if (isHttp(uri)) {
+            return List.of(new Target(route.getId(), uri, route, healthProperties.getDefaultPath()));
+        }
+        ApiGatewayProperties.LoadBalancing.ServiceDefinition service = uri != null && "lb".equals(uri.getScheme())
+                ? loadBalancing.getServices().get(uri.getHost())
+                : null;
+        if (service == null) {
+            return List.of();
+        }
+        List<URI> instances = service.getInstances();
+        return instances.stream()
+                .map(instance -> new Target(
+                        instances.size() == 1 ? route.getId() : route.getId() + "@" + instance.getAuthority(),
+                        instance, route, service.getHealthPath()))
+                .toList();
+    }
 
-        // Check downstream services health
-        checkServiceHealth("auth-service", "http://localhost:4002/actuator/health", details);
-        checkServiceHealth("tenant-service", "http://localhost:8080/actuator/health", details);
-        checkServiceHealth("authz-service", "http://localhost:8082/actuator/health", details);
+    private String healthUrl(Target target) {
+        URI uri = target.base();
+        Object path = target.route().getMetadata().get(HEALTH_PATH_METADATA);
+        String healthPath = path != null ? path.toString() : target.defaultHealthPath();
+        return uri.getScheme() + "://" + uri.getAuthority() + healthPath;
+    }
 
-        return Health.up().withDetails(details).build();
+    /**
+     * Several routes share an upstream; the one declaring a health path names and locates it
+     */
+    private static Target preferHealthPath(Target first, Target other) {
+        boolean firstDeclares = first.route().getMetadata().containsKey(HEALTH_PATH_METADATA);
+        boolean otherDeclares = other.route().getMetadata().containsKey(HEALTH_PATH_METADATA);
+        return !firstDeclares && otherDeclares ? other : first;
     }
 
-    private void checkServiceHealth(String serviceName, String healthUrl, Map<String, Object> details) {
-        try {
-            WebClient webClient = webClientBuilder.build();
+    private static boolean isHttp(URI uri) {
+        return uri != null && ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()));
+    }
 
-            Mono<String> healthMono = webClient.get()
-                    .uri(healthUrl)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(2))
-                    .onErrorReturn("DOWN");
+    private record Target(String name, URI base, RouteDefinition route, String defaultHealthPath) {
+    }
 
-            String health = healthMono.block();
-            details.put(serviceName, health != null && health.contains("UP") ? "UP" : "DOWN");
+    private record Snapshot(Map<String, Object> services, Instant checkedAt) {
 
-        } catch (Exception e) {
-            details.put(serviceName, "DOWN");
+        String downstreamStatus() {
+            if (checkedAt == null) {
+                return "UNKNOWN";
+            }
+            return services.values().stream().allMatch("UP"::equals) ? "UP" : "DEGRADED";
         }
     }
-}
\ No newline at end of file
+}
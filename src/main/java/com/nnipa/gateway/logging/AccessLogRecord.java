@@ -0,0 +1,16 @@
+package com.nnipa.gateway.logging;
+
+/**
+ * One access log entry per exchange, captured on the event loop and formatted by the writer thread
+ */
+public record AccessLogRecord(
+        long timestamp,
+        String correlationId,
+        String method,
+        String path,
+        String routeId,
+        int status,
+        long durationNanos,
+        String clientIp,
+        String error) {
+}
@@ -0,0 +1,77 @@
+package com.nnipa.gateway.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer for access log records
+ * Any number of event-loop threads may offer concurrently; a single writer
+ * thread drains. Each slot carries a sequence number that tells producers and
+ * the consumer whose turn it is, so neither side ever takes a lock. When the
+ * buffer is full, offers fail instead of blocking the caller.
+ */
+final class AccessLogRingBuffer {
+
+    private final AccessLogRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1) << 1);
+        this.slots = new AccessLogRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish a record, returning false if the buffer is full
+     */
+    boolean offer(AccessLogRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = record;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hand up to max published records to the sink; must only be called from the writer thread
+     */
+    int drain(Consumer<AccessLogRecord> sink, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+
+            AccessLogRecord record = slots[index];
+            slots[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+
+            sink.accept(record);
+            drained++;
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,247 @@
+package com.nnipa.gateway.logging;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured access log
+ * Filters submit one record per exchange into a lock-free ring buffer; a
+ * background thread drains it in batches, formats JSON lines and appends them
+ * to a size-rolled file. Successful requests can be sampled, errors are
+ * always kept. Records are dropped (and counted) rather than ever blocking
+ * an event-loop thread when the writer falls behind. If writing fails, the
+ * writer closes the file and reopens it after a growing pause.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ApiGatewayProperties.AccessLog properties;
+    private final AccessLogRingBuffer buffer;
+    private final Counter droppedRecords;
+    private final StringBuilder line = new StringBuilder(512);
+
+    private volatile boolean running;
+    private Thread writerThread;
+    private OutputStream output;
+    private long fileSize;
+    private int unflushed;
+
+    public AccessLogWriter(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getAccessLog();
+        this.buffer = new AccessLogRingBuffer(this.properties.getBufferSize());
+        this.droppedRecords = Counter.builder("gateway.accesslog.dropped")
+                .description("Access log records dropped because the writer fell behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether an exchange with this outcome should be logged at all
+     */
+    public boolean shouldLog(int status, boolean failed) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        if (failed || status >= 400 || status == 0) {
+            return true;
+        }
+        double sampleRate = properties.getSuccessSampleRate();
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Queue a record for the writer thread, never blocking the caller
+     */
+    public void submit(AccessLogRecord record) {
+        if (!buffer.offer(record)) {
+            droppedRecords.increment();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::run, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void run() {
+        long idleNanos = properties.getFlushInterval().toNanos();
+        int batchSize = properties.getBatchSize();
+        long backoffNanos = INITIAL_BACKOFF_NANOS;
+
+        while (running) {
+            try {
+                if (output == null) {
+                    openOutput();
+                }
+                if (buffer.drain(this::write, batchSize) > 0) {
+                    flushBatch();
+                } else {
+                    LockSupport.parkNanos(idleNanos);
+                }
+                backoffNanos = INITIAL_BACKOFF_NANOS;
+            } catch (IOException | RuntimeException e) {
+                // Disk full or a failed roll: reopen after a pause rather than losing the log for good
+                dropUnflushed();
+                log.error("Access log write failed, reopening in {} ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(backoffNanos), e.getMessage(), e);
+                closeOutput();
+                LockSupport.parkNanos(backoffNanos);
+                backoffNanos = Math.min(2 * backoffNanos, MAX_BACKOFF_NANOS);
+            }
+        }
+
+        // Drain whatever was queued before shutdown
+        try {
+            if (output == null) {
+                openOutput();
+            }
+            while (buffer.drain(this::write, batchSize) > 0) {
+                flushBatch();
+            }
+        } catch (IOException | RuntimeException e) {
+            dropUnflushed();
+            log.error("Access log records queued at shutdown were lost: {}", e.getMessage());
+        } finally {
+            closeOutput();
+        }
+    }
+
+    private void write(AccessLogRecord record) {
+        line.setLength(0);
+        line.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(record.timestamp())).append('"');
+        appendField("correlationId", record.correlationId());
+        appendField("method", record.method());
+        appendField("path", record.path());
+        appendField("route", record.routeId());
+        line.append(",\"status\":").append(record.status());
+        line.append(",\"durationMs\":").append(TimeUnit.NANOSECONDS.toMicros(record.durationNanos()) / 1000.0);
+        appendField("clientIp", record.clientIp());
+        appendField("error", record.error());
+        line.append("}\n");
+
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        unflushed++;
+        try {
+            output.write(bytes);
+            fileSize += bytes.length;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write access log", e);
+        }
+    }
+
+    private void appendField(String name, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private void flushBatch() throws IOException {
+        output.flush();
+        unflushed = 0;
+        if (fileSize >= properties.getMaxFileSize().toBytes()) {
+            roll();
+        }
+    }
+
+    /**
+     * Count the records taken from the buffer since the last flush, which a failed write loses
+     */
+    private void dropUnflushed() {
+        droppedRecords.increment(unflushed);
+        unflushed = 0;
+    }
+
+    private void openOutput() throws IOException {
+        Path file = Path.of(properties.getFile());
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        output = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        fileSize = Files.size(file);
+    }
+
+    /**
+     * Shift access.log.1 .. access.log.(N-1) up by one and start a fresh file
+     */
+    private void roll() throws IOException {
+        closeOutput();
+
+        String file = properties.getFile();
+        int maxHistory = properties.getMaxHistory();
+        Files.deleteIfExists(Path.of(file + "." + maxHistory));
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            Path source = Path.of(file + "." + i);
+            if (Files.exists(source)) {
+                Files.move(source, Path.of(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxHistory > 0) {
+            Files.move(Path.of(file), Path.of(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(Path.of(file));
+        }
+
+        openOutput();
+    }
+
+    private void closeOutput() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+        } catch (IOException e) {
+            log.warn("Failed to close access log: {}", e.getMessage());
+        }
+        output = null;
+    }
+}
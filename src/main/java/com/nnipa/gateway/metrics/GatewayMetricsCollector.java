@@ -1,28 +1,40 @@
 package com.nnipa.gateway.metrics;
 
+import com.nnipa.gateway.config.ApiGatewayProperties;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Custom metrics collector for gateway
+ * Per-route meters are tagged by route id, method and status class only, and
+ * are resolved once per combination; recording afterwards is a plain array read.
  */
 @Slf4j
 @Component
 public class GatewayMetricsCollector {
 
+    private static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS", "OTHER"};
+    private static final String[] STATUS_CLASSES = {"UNKNOWN", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
     private final MeterRegistry meterRegistry;
+    private final ApiGatewayProperties.Metrics metricsProperties;
     private final Counter requestCounter;
     private final Counter errorCounter;
     private final Counter rateLimitCounter;
     private final Timer requestTimer;
+    private final Map<String, AtomicReferenceArray<RouteMeters>> routeMeters = new ConcurrentHashMap<>();
 
-    public GatewayMetricsCollector(MeterRegistry meterRegistry) {
+    public GatewayMetricsCollector(MeterRegistry meterRegistry, ApiGatewayProperties properties) {
         this.meterRegistry = meterRegistry;
+        this.metricsProperties = properties.getMetrics();
 
         this.requestCounter = Counter.builder("gateway.requests.total")
                 .description("Total number of requests")
@@ -36,7 +48,7 @@ public class GatewayMetricsCollector {
                 .description("Number of rate limit exceeded events")
                 .register(meterRegistry);
 
-        this.requestTimer = Timer.builder("gateway.request.duration")
+        this.requestTimer = durationTimer("gateway.request.duration")
                 .description("Request duration")
                 .register(meterRegistry);
     }
@@ -57,12 +69,89 @@ public class GatewayMetricsCollector {
         requestTimer.record(duration, unit);
     }
 
-    public void recordRequestWithTags(String method, String path, int status) {
-        Counter.builder("gateway.requests")
-                .tag("method", method)
-                .tag("path", path)
-                .tag("status", String.valueOf(status))
-                .register(meterRegistry)
-                .increment();
+    /**
+     * Record a routed exchange, splitting its duration into upstream time and gateway overhead
+     */
+    public void recordRouteRequest(String routeId, String method, int status,
+                                   long totalNanos, long upstreamNanos) {
+        RouteMeters meters = routeMeters(routeId, methodIndex(method), statusClassIndex(status));
+
+        meters.duration.record(totalNanos, TimeUnit.NANOSECONDS);
+        if (upstreamNanos >= 0) {
+            meters.upstream.record(upstreamNanos, TimeUnit.NANOSECONDS);
+            meters.overhead.record(Math.max(0, totalNanos - upstreamNanos), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private RouteMeters routeMeters(String routeId, int methodIndex, int statusIndex) {
+        AtomicReferenceArray<RouteMeters> cells = routeMeters.get(routeId);
+        if (cells == null) {
+            cells = routeMeters.computeIfAbsent(routeId,
+                    id -> new AtomicReferenceArray<>(METHODS.length * STATUS_CLASSES.length));
+        }
+
+        int index = methodIndex * STATUS_CLASSES.length + statusIndex;
+        RouteMeters meters = cells.get(index);
+        if (meters == null) {
+            // Registration is idempotent, so a lost race just resolves the same meters again
+            meters = new RouteMeters(routeId, METHODS[methodIndex], STATUS_CLASSES[statusIndex]);
+            cells.compareAndSet(index, null, meters);
+        }
+        return meters;
+    }
+
+    private Timer.Builder durationTimer(String name) {
+        Timer.Builder builder = Timer.builder(name)
+                .publishPercentileHistogram(metricsProperties.isPercentileHistogram())
+                .minimumExpectedValue(metricsProperties.getMinimumExpectedDuration())
+                .maximumExpectedValue(metricsProperties.getMaximumExpectedDuration());
+
+        if (metricsProperties.getPercentiles() != null && !metricsProperties.getPercentiles().isEmpty()) {
+            builder.publishPercentiles(metricsProperties.getPercentiles().stream()
+                    .mapToDouble(Double::doubleValue)
+                    .toArray());
+        }
+        return builder;
+    }
+
+    private static int methodIndex(String method) {
+        return switch (method) {
+            case "GET" -> 0;
+            case "POST" -> 1;
+            case "PUT" -> 2;
+            case "PATCH" -> 3;
+            case "DELETE" -> 4;
+            case "HEAD" -> 5;
+            case "OPTIONS" -> 6;
+            default -> 7;
+        };
+    }
+
+    private static int statusClassIndex(int status) {
+        int statusClass = status / 100;
+        return statusClass >= 1 && statusClass <= 5 ? statusClass : 0;
+    }
+
+    private final class RouteMeters {
+        private final Timer duration;
+        private final Timer upstream;
+        private final Timer overhead;
+
+        private RouteMeters(String routeId, String method, String status) {
+            this.duration = durationTimer("gateway.route.duration")
+                    .description("Total time spent on a routed request")
+                    .tags("route", routeId, "method", method, "status", status)
+                    .register(meterRegistry);
+
+            this.upstream = durationTimer("gateway.route.upstream.duration")
+                    .description("Time until the upstream service responded")
+                    .tags("route", routeId, "method", method, "status", status)
+                    .register(meterRegistry);
+
+            this.overhead = durationTimer("gateway.route.overhead.duration")
+                    .description("Time spent in the gateway itself")
+                    .tags("route", routeId, "method", method, "status", status)
+                    .register(meterRegistry);
+        }
     }
 }
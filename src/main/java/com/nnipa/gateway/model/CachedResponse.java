@@ -0,0 +1,31 @@
+package com.nnipa.gateway.model;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.List;
+
+/**
+ * Upstream response held by the response cache
+ *
+ * @param status         response status
+ * @param headers        read-only response headers, without hop-by-hop and per-request ones
+ * @param body           complete response body
+ * @param vary           request headers named by the response's Vary header
+ * @param storedAtMillis wall-clock time the response was stored, for the Age header
+ * @param ttlNanos       freshness lifetime from Cache-Control or the route default
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body,
+                             List<String> vary, long storedAtMillis, long ttlNanos) {
+
+    public long ageSeconds(long nowMillis) {
+        return Math.max(0, (nowMillis - storedAtMillis) / 1000);
+    }
+
+    /**
+     * Approximate retained size, used as the cache weight
+     */
+    public int weight() {
+        return body.length + 64 * headers.size() + 128;
+    }
+}
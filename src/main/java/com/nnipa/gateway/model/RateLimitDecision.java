@@ -0,0 +1,13 @@
+package com.nnipa.gateway.model;
+
+/**
+ * Outcome of a single rate limit probe
+ * Carries everything needed for the response headers, so the bucket is read exactly once per request.
+ *
+ * @param allowed         whether the request consumed a token
+ * @param remaining       tokens left after this request
+ * @param nanosToRefill   time until at least one token is available again, 0 when allowed
+ * @param nanosToReset    time until the bucket is back to full capacity
+ */
+public record RateLimitDecision(boolean allowed, long remaining, long nanosToRefill, long nanosToReset) {
+}
@@ -0,0 +1,170 @@
+package com.nnipa.gateway.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Compact rate limit key, scoped to the route being limited
+ * UUIDs and IP addresses are packed into two longs instead of being kept as
+ * concatenated strings; anything else is reduced to a 128-bit hash.
+ */
+public record RateLimitKey(String routeId, Kind kind, long high, long low) {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFFL << 32;
+
+    public enum Kind {
+        TENANT, USER, IP
+    }
+
+    public static RateLimitKey tenant(String routeId, String tenantId) {
+        return ofIdentifier(routeId, Kind.TENANT, tenantId);
+    }
+
+    public static RateLimitKey user(String routeId, String userId) {
+        return ofIdentifier(routeId, Kind.USER, userId);
+    }
+
+    public static RateLimitKey ip(String routeId, String address) {
+        long ipv4 = parseIpv4(address);
+        if (ipv4 >= 0) {
+            // Stored in IPv4-mapped IPv6 form so it cannot collide with a native IPv6 address
+            return new RateLimitKey(routeId, Kind.IP, 0, IPV4_MAPPED_PREFIX | ipv4);
+        }
+        if (address.indexOf(':') >= 0) {
+            long[] ipv6 = parseIpv6(address);
+            if (ipv6 != null) {
+                return new RateLimitKey(routeId, Kind.IP, ipv6[0], ipv6[1]);
+            }
+        }
+        return hashed(routeId, Kind.IP, address);
+    }
+
+    private static RateLimitKey ofIdentifier(String routeId, Kind kind, String value) {
+        if (value.length() == 36) {
+            try {
+                UUID uuid = UUID.fromString(value);
+                return new RateLimitKey(routeId, kind, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } catch (IllegalArgumentException e) {
+                // Not a UUID, fall through to hashing
+            }
+        }
+        return hashed(routeId, kind, value);
+    }
+
+    /**
+     * Two independent 64-bit FNV-1a variants, so unrelated values practically never share a bucket
+     */
+    private static RateLimitKey hashed(String routeId, Kind kind, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x84222325cbf29ce4L;
+        for (byte b : bytes) {
+            h1 = (h1 ^ (b & 0xff)) * 0x100000001b3L;
+            h2 = (h2 ^ (b & 0xff)) * 0x100000001b3L + 0x9e3779b97f4a7c15L;
+        }
+        return new RateLimitKey(routeId, kind, h1, h2);
+    }
+
+    /**
+     * Parse a dotted-quad IPv4 literal without touching DNS, returning -1 if it is not one
+     */
+    private static long parseIpv4(String address) {
+        long result = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                result = (result << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || octet < 0) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * Parse an IPv6 literal (with optional "::" compression) without touching DNS
+     */
+    private static long[] parseIpv6(String address) {
+        int zone = address.indexOf('%');
+        String literal = zone >= 0 ? address.substring(0, zone) : address;
+        if (literal.startsWith("[") && literal.endsWith("]")) {
+            literal = literal.substring(1, literal.length() - 1);
+        }
+
+        int compression = literal.indexOf("::");
+        if (compression >= 0 && literal.indexOf("::", compression + 1) >= 0) {
+            return null;
+        }
+
+        int[] head = parseGroups(compression >= 0 ? literal.substring(0, compression) : literal);
+        int[] tail = compression >= 0 ? parseGroups(literal.substring(compression + 2)) : new int[0];
+        if (head == null || tail == null) {
+            return null;
+        }
+        int total = head.length + tail.length;
+        if (compression < 0 ? total != 8 : total > 7) {
+            return null;
+        }
+
+        int[] groups = new int[8];
+        System.arraycopy(head, 0, groups, 0, head.length);
+        System.arraycopy(tail, 0, groups, 8 - tail.length, tail.length);
+
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 4; i++) {
+            high = (high << 16) | groups[i];
+            low = (low << 16) | groups[i + 4];
+        }
+        return new long[]{high, low};
+    }
+
+    private static int[] parseGroups(String part) {
+        if (part.isEmpty()) {
+            return new int[0];
+        }
+        String[] tokens = part.split(":", -1);
+        int[] groups = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.isEmpty() || token.length() > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < token.length(); j++) {
+                int digit = Character.digit(token.charAt(j), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+            }
+            groups[i] = value;
+        }
+        return groups;
+    }
+
+    @Override
+    public String toString() {
+        String prefix = routeId + "/" + kind.name().toLowerCase() + ":";
+        if (kind == Kind.IP && high == 0 && (low >>> 32) == 0xFFFFL) {
+            return prefix + ((low >>> 24) & 0xff) + "." + ((low >>> 16) & 0xff) + "."
+                    + ((low >>> 8) & 0xff) + "." + (low & 0xff);
+        }
+        if (kind == Kind.IP) {
+            return prefix + String.format("%016x%016x", high, low);
+        }
+        return prefix + new UUID(high, low);
+    }
+}
@@ -0,0 +1,21 @@
+package com.nnipa.gateway.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Identity extracted from a JWT whose signature has already been verified
+ */
+@Value
+@Builder
+public class VerifiedPrincipal {
+    UUID userId;
+    UUID tenantId;
+    String correlationId;
+    String tokenId;
+    Instant issuedAt;
+    Instant expiresAt;
+}
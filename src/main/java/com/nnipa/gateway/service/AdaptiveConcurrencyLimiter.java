@@ -0,0 +1,198 @@
+package com.nnipa.gateway.service;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight request limit for one upstream, adapted from measured round-trip times
+ * Gradient algorithm: a short and a long moving average of the RTT are kept;
+ * while the short one stays near the long-term baseline the limit grows by
+ * about sqrt(limit), and once the upstream slows down the limit shrinks in
+ * proportion (never by more than half per sample). Failed or cancelled
+ * requests back the limit off. Requests over the limit wait in a short,
+ * bounded queue and are rejected if no slot frees up in time.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final Duration maxQueueTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      int maxQueueSize, Duration maxQueueTime) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueTime = maxQueueTime;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Completes once the caller holds a slot, or fails with LimitExceededException
+     * Every successful acquire must be paired with exactly one onSuccess or onDropped.
+     */
+    public Mono<Void> acquire() {
+        if (tryAcquire()) {
+            return Mono.empty();
+        }
+        if (maxQueueSize <= 0 || queued.incrementAndGet() > maxQueueSize) {
+            if (maxQueueSize > 0) {
+                queued.decrementAndGet();
+            }
+            return Mono.error(LimitExceededException.INSTANCE);
+        }
+
+        return Mono.<Void>create(sink -> {
+                    Waiter waiter = new Waiter(sink);
+                    sink.onCancel(() -> {
+                        if (!waiter.claim()) {
+                            // A slot was handed over but never delivered; give it back
+                            release();
+                        }
+                        waiters.remove(waiter);
+                    });
+                    waiters.offer(waiter);
+                    drain();
+                })
+                .timeout(maxQueueTime, Mono.error(LimitExceededException.INSTANCE))
+                .doFinally(signal -> queued.decrementAndGet());
+    }
+
+    /**
+     * Release a slot and feed the request's round-trip time into the limit
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightBefore = inFlight.get();
+        release();
+        if (rttNanos > 0) {
+            sample(rttNanos, inFlightBefore);
+        }
+    }
+
+    /**
+     * Release a slot for a failed, timed out or cancelled request and back the limit off
+     */
+    public void onDropped() {
+        release();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtSample) {
+        if (shortRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+
+        // After a sustained slowdown, let the baseline catch up instead of holding the limit down
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // The limit only grows while it is actually being used
+        if (inFlightAtSample < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Hand free slots to queued requests in arrival order
+     */
+    private void drain() {
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null) {
+            if (!tryAcquire()) {
+                return;
+            }
+            if (waiters.remove(waiter) && waiter.claim()) {
+                waiter.sink.success();
+            } else {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Void> sink;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Waiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * The limit is reached and the queue is full or the wait timed out
+     */
+    public static final class LimitExceededException extends RuntimeException {
+
+        static final LimitExceededException INSTANCE = new LimitExceededException();
+
+        private LimitExceededException() {
+            super("Concurrency limit exceeded", null, false, false);
+        }
+    }
+}
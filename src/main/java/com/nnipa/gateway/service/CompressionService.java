@@ -0,0 +1,112 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.codec.compression.Zstd;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings and metrics for response compression
+ * Exposes gateway.compression.ratio (compressed / original size per response),
+ * gateway.compression.time (time spent inside the encoder, which is pure CPU
+ * work on the event loop) and gateway.compression.bytes{direction=in|out},
+ * tagged with route and encoding.
+ */
+@Slf4j
+@Service
+public class CompressionService {
+
+    private final ApiGatewayProperties.Compression properties;
+    private final MeterRegistry meterRegistry;
+    private final List<MediaType> excludedContentTypes;
+    private final boolean zstdAvailable;
+    private final Map<String, EncodingMeters> meters = new ConcurrentHashMap<>();
+
+    public CompressionService(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getCompression();
+        this.meterRegistry = meterRegistry;
+        this.excludedContentTypes = MediaType.parseMediaTypes(this.properties.getExcludedContentTypes());
+        this.zstdAvailable = Zstd.isAvailable();
+        log.info("Response compression {}: gzip, deflate{}", this.properties.isEnabled() ? "enabled" : "disabled",
+                zstdAvailable ? ", zstd" : " (zstd unavailable, zstd-jni not on the classpath)");
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public boolean isZstdAvailable() {
+        return zstdAvailable;
+    }
+
+    public int getLevel() {
+        return properties.getLevel();
+    }
+
+    public long getMinSizeBytes() {
+        return properties.getMinSize().toBytes();
+    }
+
+    /**
+     * Whether bodies of this type are worth compressing; already compressed formats are not
+     */
+    public boolean isCompressible(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType excluded : excludedContentTypes) {
+            if (excluded.includes(contentType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void record(String routeId, String encoding, long originalBytes, long compressedBytes, long encodeNanos) {
+        EncodingMeters encodingMeters = meters.computeIfAbsent(routeId + '\n' + encoding,
+                key -> register(routeId, encoding));
+        encodingMeters.time().record(encodeNanos, TimeUnit.NANOSECONDS);
+        encodingMeters.bytesIn().increment(originalBytes);
+        encodingMeters.bytesOut().increment(compressedBytes);
+        if (originalBytes > 0) {
+            encodingMeters.ratio().record((double) compressedBytes / originalBytes);
+        }
+    }
+
+    private EncodingMeters register(String routeId, String encoding) {
+        Tags tags = Tags.of("route", routeId, "encoding", encoding);
+        return new EncodingMeters(
+                DistributionSummary.builder("gateway.compression.ratio")
+                        .description("Compressed size as a fraction of the original")
+                        .tags(tags)
+                        .register(meterRegistry),
+                Timer.builder("gateway.compression.time")
+                        .description("Time spent compressing response bodies")
+                        .tags(tags)
+                        .register(meterRegistry),
+                Counter.builder("gateway.compression.bytes")
+                        .description("Response bytes before and after compression")
+                        .baseUnit("bytes")
+                        .tags(tags.and("direction", "in"))
+                        .register(meterRegistry),
+                Counter.builder("gateway.compression.bytes")
+                        .description("Response bytes before and after compression")
+                        .baseUnit("bytes")
+                        .tags(tags.and("direction", "out"))
+                        .register(meterRegistry));
+    }
+
+    private record EncodingMeters(DistributionSummary ratio, Timer time, Counter bytesIn, Counter bytesOut) {
+    }
+}
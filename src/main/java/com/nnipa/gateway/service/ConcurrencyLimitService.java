@@ -0,0 +1,73 @@
+package com.nnipa.gateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limiters, one per route
+ * Exposes gateway.concurrency.limit, gateway.concurrency.inflight and
+ * gateway.concurrency.queued gauges and a gateway.concurrency.rejected
+ * counter per route, next to gateway.ratelimit.exceeded.
+ */
+@Slf4j
+@Service
+public class ConcurrencyLimitService {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Limiter for the route, created with these settings on first use
+     */
+    public AdaptiveConcurrencyLimiter limiter(String routeId, int initialLimit, int minLimit, int maxLimit,
+                                              int maxQueueSize, Duration maxQueueTime) {
+        return limiters.computeIfAbsent(routeId, id -> register(id,
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, maxQueueSize, maxQueueTime)))
+                .limiter();
+    }
+
+    public void recordRejected(String routeId) {
+        RouteLimiter routeLimiter = limiters.get(routeId);
+        if (routeLimiter != null) {
+            routeLimiter.rejected().increment();
+        }
+    }
+
+    private RouteLimiter register(String routeId, AdaptiveConcurrencyLimiter limiter) {
+        Tags tags = Tags.of("route", routeId);
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive in-flight limit")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently in flight to the upstream")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Requests waiting for an in-flight slot")
+                .tags(tags)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                .description("Requests rejected by the adaptive concurrency limit")
+                .tags(tags)
+                .register(meterRegistry);
+
+        log.debug("Created adaptive concurrency limiter for route {}", routeId);
+        return new RouteLimiter(limiter, rejected);
+    }
+
+    private record RouteLimiter(AdaptiveConcurrencyLimiter limiter, Counter rejected) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.nnipa.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.RateLimitDecision;
+import com.nnipa.gateway.model.RateLimitKey;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.VerboseResult;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Cluster-wide rate limiting backed by a shared Bucket4j ProxyManager
+ * Each node leases a small batch of tokens from the shared bucket and serves
+ * requests from that lease locally, so the backend is consulted roughly once
+ * per batch rather than once per request. Leases expire quickly, which bounds
+ * how many tokens a node can hold back from the rest of the cluster; tokens a
+ * lease did not spend go back to the shared bucket at the next top-up.
+ */
+@Slf4j
+@Service
+public class DistributedRateLimitService {
+
+    private static final long REFILL_PERIOD_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final ProxyManager<RateLimitKey> proxyManager;
+    private final Cache<RateLimitKey, Lease> leases;
+    private final int leaseTokens;
+    private final long leaseDurationNanos;
+
+    public DistributedRateLimitService(ProxyManager<RateLimitKey> proxyManager,
+                                       ApiGatewayProperties properties) {
+        ApiGatewayProperties.RateLimiting rateLimiting = properties.getRateLimiting();
+        ApiGatewayProperties.RateLimiting.Distributed distributed = rateLimiting.getDistributed();
+
+        this.proxyManager = proxyManager;
+        this.leaseTokens = Math.max(1, distributed.getLeaseTokens());
+        this.leaseDurationNanos = distributed.getLeaseDuration().toNanos();
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(rateLimiting.getCacheSize())
+                .expireAfterAccess(rateLimiting.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Try to consume a token from the local lease, topping it up from the shared bucket when needed
+     */
+    public RateLimitDecision tryConsume(RateLimitKey key, int requestsPerSecond, int burstCapacity) {
+        Lease lease = leases.get(key, k -> new Lease(proxyManager.builder()
+                .build(k, () -> configuration(requestsPerSecond, burstCapacity))));
+
+        RateLimitDecision decision = lease.tryAcquire(Math.min(leaseTokens, burstCapacity), leaseDurationNanos);
+
+        if (decision.allowed()) {
+            log.debug("Distributed rate limit allowed for key: {}", key);
+        } else {
+            log.debug("Distributed rate limit denied for key: {}", key);
+        }
+
+        return decision;
+    }
+
+    /**
+     * Check if request is allowed based on the cluster-wide rate limit
+     */
+    public boolean allowRequest(RateLimitKey key, int requestsPerSecond, int burstCapacity) {
+        return tryConsume(key, requestsPerSecond, burstCapacity).allowed();
+    }
+
+    /**
+     * Get tokens still leased locally for a key
+     */
+    public long getRemainingTokens(RateLimitKey key) {
+        Lease lease = leases.getIfPresent(key);
+        return lease != null ? lease.remaining() : 0;
+    }
+
+    private static BucketConfiguration configuration(int requestsPerSecond, int burstCapacity) {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(
+                        burstCapacity,
+                        Refill.intervally(requestsPerSecond, Duration.ofSeconds(1))))
+                .build();
+    }
+
+    /**
+     * Tokens taken from the shared bucket and not yet spent by this node
+     * The shared bucket state seen at the last top-up is kept so that requests
+     * served from the lease can still report remaining tokens and reset time.
+     */
+    private static final class Lease {
+        private final Bucket remote;
+        private long tokens;
+        private long expiresAtNanos;
+        private long sharedRemaining;
+        private long resetAtNanos;
+
+        private Lease(Bucket remote) {
+            this.remote = remote;
+        }
+
+        synchronized RateLimitDecision tryAcquire(int batchSize, long leaseDurationNanos) {
+            long now = System.nanoTime();
+            if (tokens > 0 && now - expiresAtNanos < 0) {
+                tokens--;
+                return new RateLimitDecision(true, tokens + sharedRemaining, 0, Math.max(0, resetAtNanos - now));
+            }
+            if (tokens > 0) {
+                // Hand back what the expired lease did not spend, or slow clients drain the bucket unused
+                remote.addTokens(tokens);
+                tokens = 0;
+            }
+
+            VerboseResult<Long> result = remote.asVerbose().tryConsumeAsMuchAsPossible(batchSize);
+            long granted = result.getValue();
+            long nanosToReset = result.getDiagnostics().calculateFullRefillingTime();
+            sharedRemaining = result.getDiagnostics().getAvailableTokens();
+            resetAtNanos = now + nanosToReset;
+
+            if (granted == 0) {
+                tokens = 0;
+                return new RateLimitDecision(false, 0, nanosToNextRefill(nanosToReset), nanosToReset);
+            }
+
+            tokens = granted - 1;
+            expiresAtNanos = now + leaseDurationNanos;
+            return new RateLimitDecision(true, tokens + sharedRemaining, 0, nanosToReset);
+        }
+
+        /**
+         * Tokens are added at whole refill periods, so the next one lands at the
+         * next period boundary on the way to a full bucket
+         */
+        private static long nanosToNextRefill(long nanosToReset) {
+            long partial = nanosToReset % REFILL_PERIOD_NANOS;
+            return partial > 0 ? partial : REFILL_PERIOD_NANOS;
+        }
+
+        synchronized long remaining() {
+            return System.nanoTime() - expiresAtNanos < 0 ? tokens : 0;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.nnipa.gateway.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.util.CorrelationIdUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cached authorization decisions from authorization-service
+ * Decisions are keyed by user, tenant and permission (resource:action) and
+ * kept in a bounded Caffeine cache, allows for allow-ttl and denials for the
+ * shorter deny-ttl. A miss asks authorization-service in one batch for the
+ * requested permission plus every configured prefetch permission the user
+ * is missing, so the next requests of the same user action are answered
+ * locally; concurrent misses for the same key share one call. Failed calls
+ * and permissions the answer leaves out are not cached and yield
+ * UNAVAILABLE. Revocations pushed by authorization-service evict entries
+ * through invalidate.
+ * Exposes gateway.authz.cache{result=hit|miss} and
+ * gateway.authz.decisions{result=allow|deny|unavailable}.
+ */
+@Slf4j
+@Service
+public class EdgeAuthorizationService {
+
+    public enum Decision {
+        ALLOW, DENY, UNAVAILABLE
+    }
+
+    private final ApiGatewayProperties.Authorization properties;
+    private final LoadBalancerService loadBalancerService;
+    private final WebClient webClient;
+    private final AsyncCache<DecisionKey, Boolean> decisions;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<Decision, Counter> outcomes = new HashMap<>();
+
+    public EdgeAuthorizationService(ApiGatewayProperties properties, LoadBalancerService loadBalancerService,
+                                    WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        this.properties = properties.getAuthorization();
+        this.loadBalancerService = loadBalancerService;
+        this.webClient = webClientBuilder.build();
+
+        this.decisions = Caffeine.newBuilder()
+                .maximumSize(this.properties.getCacheSize())
+                .expireAfter(new DecisionExpiry(this.properties.getAllowTtl().toNanos(),
+                        this.properties.getDenyTtl().toNanos()))
+                .buildAsync();
+
+        this.hits = cacheCounter(meterRegistry, "hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        for (Decision decision : Decision.values()) {
+            outcomes.put(decision, Counter.builder("gateway.authz.decisions")
+                    .description("Edge authorization decisions")
+                    .tag("result", decision.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("gateway.authz.cache.size", decisions, cache -> cache.synchronous().estimatedSize())
+                .description("Authorization decisions held by the gateway")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decide whether the user may use the permission in the tenant
+     * Never fails: an unreachable or failing authorization-service yields UNAVAILABLE.
+     */
+    public Mono<Decision> decide(String userId, String tenantId, String permission, String correlationId) {
+        DecisionKey key = new DecisionKey(userId, tenantId, permission);
+        CompletableFuture<Boolean> cached = decisions.getIfPresent(key);
+        Mono<Boolean> allowed;
+        if (cached != null) {
+            hits.increment();
+            // Other requests may wait on the same future, so cancelling this one must not cancel it
+            allowed = Mono.fromFuture(cached, true);
+        } else {
+            misses.increment();
+            Set<DecisionKey> keys = new LinkedHashSet<>();
+            keys.add(key);
+            for (String prefetch : properties.getPrefetchPermissions()) {
+                keys.add(new DecisionKey(userId, tenantId, prefetch));
+            }
+            allowed = Mono.fromFuture(decisions.getAll(keys,
+                            (missing, executor) -> fetch(userId, tenantId, missing, correlationId).toFuture()), true)
+                    .mapNotNull(result -> result.get(key));
+        }
+
+        return allowed
+                .map(allow -> allow ? Decision.ALLOW : Decision.DENY)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Authorization decision for {} unavailable: not in the authorization-service answer",
+                            permission);
+                    return Decision.UNAVAILABLE;
+                }))
+                .onErrorResume(e -> {
+                    log.warn("Authorization decision for {} unavailable: {}", permission, e.toString());
+                    return Mono.just(Decision.UNAVAILABLE);
+                })
+                .doOnNext(decision -> outcomes.get(decision).increment());
+    }
+
+    /**
+     * Drop cached decisions of a user, a tenant, or both; with neither, drop everything
+     *
+     * @return number of decisions removed
+     */
+    public long invalidate(String userId, String tenantId) {
+        if (userId == null && tenantId == null) {
+            long size = decisions.synchronous().estimatedSize();
+            decisions.synchronous().invalidateAll();
+            log.info("Invalidated all cached authorization decisions");
+            return size;
+        }
+
+        List<DecisionKey> matching = new ArrayList<>();
+        for (DecisionKey key : decisions.asMap().keySet()) {
+            if ((userId == null || userId.equals(key.userId()))
+                    && (tenantId == null || tenantId.equals(key.tenantId()))) {
+                matching.add(key);
+            }
+        }
+        decisions.synchronous().invalidateAll(matching);
+        log.info("Invalidated {} cached authorization decisions for user {} tenant {}",
+                matching.size(), userId, tenantId);
+        return matching.size();
+    }
+
+    public String getInvalidationToken() {
+        return properties.getInvalidationToken();
+    }
+
+    /**
+     * One batch call for the missing permissions; permissions left out of the answer are not cached
+     */
+    private Mono<Map<DecisionKey, Boolean>> fetch(String userId, String tenantId, Set<? extends DecisionKey> missing,
+                                                  String correlationId) {
+        List<String> permissions = new ArrayList<>(missing.size());
+        for (DecisionKey key : missing) {
+            permissions.add(key.permission());
+        }
+
+        return Mono.defer(() -> {
+            UpstreamInstance instance = loadBalancerService.choose(properties.getService());
+            if (instance == null) {
+                return Mono.error(new IllegalStateException("No instances of " + properties.getService()));
+            }
+            long start = System.nanoTime();
+            return webClient.post()
+                    .uri(instance.getUri().resolve(properties.getCheckPath()))
+                    .header(CorrelationIdUtils.getHeaderName(), correlationId)
+                    .bodyValue(new DecisionRequest(userId, tenantId, permissions))
+                    .retrieve()
+                    .bodyToMono(DecisionResponse.class)
+                    .timeout(properties.getTimeout())
+                    .doOnSuccess(response -> loadBalancerService.release(instance, System.nanoTime() - start, true))
+                    .doOnError(e -> loadBalancerService.release(instance, System.nanoTime() - start,
+                            !isInstanceFailure(e)))
+                    .doOnCancel(() -> loadBalancerService.release(instance));
+        }).map(response -> {
+            Map<DecisionKey, Boolean> result = new HashMap<>();
+            Map<String, Boolean> answered = response.decisions() != null ? response.decisions() : Map.of();
+            for (DecisionKey key : missing) {
+                Boolean allowed = answered.get(key.permission());
+                if (allowed != null) {
+                    result.put(key, allowed);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Whether the error says the instance is unhealthy, as LoadBalancerFilter judges proxied calls
+     * Other answers, such as a 4xx for a wrong check-path, are the gateway's problem, not the instance's.
+     */
+    private static boolean isInstanceFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 502 || status == 503 || status == 504;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.authz.cache")
+                .description("Authorization decision cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record DecisionKey(String userId, String tenantId, String permission) {
+    }
+
+    record DecisionRequest(String userId, String tenantId, List<String> permissions) {
+    }
+
+    record DecisionResponse(Map<String, Boolean> decisions) {
+    }
+
+    /**
+     * Keeps allows for allow-ttl and denials for deny-ttl
+     */
+    private record DecisionExpiry(long allowNanos, long denyNanos) implements Expiry<DecisionKey, Boolean> {
+
+        @Override
+        public long expireAfterCreate(DecisionKey key, Boolean allowed, long currentTime) {
+            return allowed ? allowNanos : denyNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(DecisionKey key, Boolean allowed, long currentTime, long currentDuration) {
+            return allowed ? allowNanos : denyNanos;
+        }
+
+        @Override
+        public long expireAfterRead(DecisionKey key, Boolean allowed, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
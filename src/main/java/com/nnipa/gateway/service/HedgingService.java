@@ -0,0 +1,155 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-route hedging state: recent upstream latencies, the hedge budget and metrics
+ * Exposes gateway.hedging.requests (hedgeable requests), gateway.hedging.hedges
+ * (hedges sent), gateway.hedging.wins (hedges whose response was used) and
+ * gateway.hedging.budget.exhausted counters and a gateway.hedging.delay gauge
+ * per route.
+ */
+@Slf4j
+@Service
+public class HedgingService {
+
+    private final ApiGatewayProperties.Hedging properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteHedging> routes = new ConcurrentHashMap<>();
+
+    public HedgingService(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getHedging();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Hedging state for the route, created with this percentile on first use
+     */
+    public RouteHedging forRoute(String routeId, double percentile) {
+        return routes.computeIfAbsent(routeId, id -> register(id, percentile));
+    }
+
+    private RouteHedging register(String routeId, double percentile) {
+        Tags tags = Tags.of("route", routeId);
+        RouteHedging hedging = new RouteHedging(percentile, properties.getMinDelay().toNanos(),
+                properties.getMinSamples(),
+                new RequestBudget(properties.getBudgetRatio(), properties.getBudgetBurst()),
+                counter("gateway.hedging.requests", "Requests eligible for hedging", tags),
+                counter("gateway.hedging.hedges", "Hedged requests sent", tags),
+                counter("gateway.hedging.wins", "Hedged requests whose response was used", tags),
+                counter("gateway.hedging.budget.exhausted", "Hedges skipped because the budget was spent", tags));
+        Gauge.builder("gateway.hedging.delay", hedging, RouteHedging::getPercentileMillis)
+                .description("Observed latency percentile after which requests are hedged")
+                .baseUnit("milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+
+        log.debug("Created hedging state for route {} at p{}", routeId, Math.round(percentile * 100));
+        return hedging;
+    }
+
+    private Counter counter(String name, String description, Tags tags) {
+        return Counter.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    public static final class RouteHedging {
+
+        private static final int WINDOW = 512;
+        private static final int RECOMPUTE_EVERY = 32;
+
+        private final double percentile;
+        private final long minDelayNanos;
+        private final int minSamples;
+        private final RequestBudget budget;
+        private final Counter requests;
+        private final Counter hedges;
+        private final Counter wins;
+        private final Counter budgetExhausted;
+
+        private final long[] samples = new long[WINDOW];
+        private long sampleCount;
+        private volatile long percentileNanos = -1;
+
+        private RouteHedging(double percentile, long minDelayNanos, int minSamples, RequestBudget budget,
+                             Counter requests, Counter hedges, Counter wins, Counter budgetExhausted) {
+            this.percentile = percentile;
+            this.minDelayNanos = minDelayNanos;
+            this.minSamples = Math.max(1, Math.min(minSamples, WINDOW));
+            this.budget = budget;
+            this.requests = requests;
+            this.hedges = hedges;
+            this.wins = wins;
+            this.budgetExhausted = budgetExhausted;
+        }
+
+        /**
+         * Count a hedgeable request and credit the hedge budget for it
+         */
+        public void onRequest() {
+            requests.increment();
+            budget.deposit();
+        }
+
+        /**
+         * Delay before hedging: the fixed delay if one is configured, otherwise the
+         * observed percentile; null while there are too few samples to know it
+         */
+        public Duration hedgeDelay(Duration fixedDelay) {
+            if (fixedDelay != null) {
+                return fixedDelay;
+            }
+            long observed = percentileNanos;
+            return observed < 0 ? null : Duration.ofNanos(Math.max(observed, minDelayNanos));
+        }
+
+        /**
+         * Take a hedge from the budget, or return false if it is spent
+         */
+        public boolean tryHedge() {
+            if (budget.tryWithdraw()) {
+                hedges.increment();
+                return true;
+            }
+            budgetExhausted.increment();
+            return false;
+        }
+
+        public void onHedgeWon() {
+            wins.increment();
+        }
+
+        /**
+         * Add an upstream latency; the percentile is recomputed from a sorted copy every few samples
+         */
+        public synchronized void recordLatency(long nanos) {
+            samples[(int) (sampleCount % WINDOW)] = nanos;
+            sampleCount++;
+            if (sampleCount == minSamples || (sampleCount > minSamples && sampleCount % RECOMPUTE_EVERY == 0)) {
+                int size = (int) Math.min(sampleCount, WINDOW);
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile * size) - 1;
+                percentileNanos = sorted[Math.max(0, Math.min(index, size - 1))];
+            }
+        }
+
+        public double getPercentileMillis() {
+            long observed = percentileNanos;
+            return observed < 0 ? Double.NaN : observed / 1_000_000.0;
+        }
+    }
+}
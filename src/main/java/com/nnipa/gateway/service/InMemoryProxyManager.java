@@ -0,0 +1,92 @@
+package com.nnipa.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nnipa.gateway.model.RateLimitKey;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Embedded Bucket4j backend that keeps serialized bucket state in process
+ * Used for tests and single-node setups; clustered deployments register their
+ * own ProxyManager bean (e.g. Redis or JDBC) in its place.
+ */
+public class InMemoryProxyManager extends AbstractCompareAndSwapBasedProxyManager<RateLimitKey> {
+
+    private final ConcurrentMap<RateLimitKey, byte[]> states;
+
+    public InMemoryProxyManager(long maximumSize, Duration idleTimeout) {
+        super(ClientSideConfig.getDefault());
+        this.states = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTimeout)
+                .<RateLimitKey, byte[]>build()
+                .asMap();
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(RateLimitKey key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                return Optional.ofNullable(states.get(key));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData,
+                                          RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                return swap(key, originalData, newData);
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(RateLimitKey key) {
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                return CompletableFuture.completedFuture(Optional.ofNullable(states.get(key)));
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                return CompletableFuture.completedFuture(swap(key, originalData, newData));
+            }
+        };
+    }
+
+    /**
+     * Arrays compare by identity, which is exactly the CAS semantics needed:
+     * the swap succeeds only if nobody replaced the state read earlier
+     */
+    private boolean swap(RateLimitKey key, byte[] originalData, byte[] newData) {
+        if (originalData == null) {
+            return states.putIfAbsent(key, newData) == null;
+        }
+        return states.replace(key, originalData, newData);
+    }
+
+    @Override
+    public void removeProxy(RateLimitKey key) {
+        states.remove(key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(RateLimitKey key) {
+        states.remove(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+}
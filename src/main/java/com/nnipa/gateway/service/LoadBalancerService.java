@@ -0,0 +1,197 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Client-side load balancing across the static instances of each service
+ * Instances come from api-gateway.load-balancing.services and are chosen by
+ * power of two choices: two random instances are compared and the one with
+ * the lower EWMA latency x (in-flight + 1) wins, which keeps selection O(1)
+ * while steering traffic away from slow or busy instances. Instances are
+ * ejected after failure-threshold consecutive failures and re-admitted once
+ * an active probe of their health path succeeds. If every instance of a
+ * service is ejected, all of them are used again rather than failing outright.
+ */
+@Slf4j
+@Service
+public class LoadBalancerService {
+
+    private final ApiGatewayProperties.LoadBalancing properties;
+    private final WebClient webClient;
+    private final Map<String, List<UpstreamInstance>> instances;
+    private final Map<String, Counter> ejections = new LinkedHashMap<>();
+
+    private Disposable prober;
+
+    public LoadBalancerService(ApiGatewayProperties properties, WebClient.Builder webClientBuilder,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties.getLoadBalancing();
+        this.webClient = webClientBuilder.build();
+
+        long decayNanos = this.properties.getLatencyDecay().toNanos();
+        Map<String, List<UpstreamInstance>> byService = new LinkedHashMap<>();
+        this.properties.getServices().forEach((serviceId, definition) -> {
+            List<UpstreamInstance> serviceInstances = new ArrayList<>();
+            for (URI uri : definition.getInstances()) {
+                UpstreamInstance instance = new UpstreamInstance(serviceId, uri, decayNanos);
+                serviceInstances.add(instance);
+                registerGauges(meterRegistry, instance);
+            }
+            byService.put(serviceId, List.copyOf(serviceInstances));
+            ejections.put(serviceId, Counter.builder("gateway.lb.ejections")
+                    .description("Instances ejected after consecutive failures")
+                    .tag("service", serviceId)
+                    .register(meterRegistry));
+        });
+        this.instances = Map.copyOf(byService);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (instances.isEmpty()) {
+            return;
+        }
+        prober = Flux.interval(properties.getProbeInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> probeEjected(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (prober != null) {
+            prober.dispose();
+        }
+    }
+
+    public boolean isLoadBalanced(String serviceId) {
+        return instances.containsKey(serviceId);
+    }
+
+    public List<UpstreamInstance> getInstances(String serviceId) {
+        return instances.getOrDefault(serviceId, List.of());
+    }
+
+    /**
+     * Pick an instance for one request, or null if the service has none
+     * The caller must hand the instance back through release.
+     */
+    public UpstreamInstance choose(String serviceId) {
+        List<UpstreamInstance> candidates = instances.get(serviceId);
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+
+        UpstreamInstance chosen = candidates.size() == 1 ? candidates.get(0) : powerOfTwoChoices(candidates);
+        chosen.acquired();
+        return chosen;
+    }
+
+    /**
+     * Report how a request to the instance went
+     */
+    public void release(UpstreamInstance instance, long latencyNanos, boolean success) {
+        instance.released();
+        if (success) {
+            instance.recordSuccess();
+            instance.recordLatency(latencyNanos);
+        } else if (instance.recordFailure(properties.getFailureThreshold())) {
+            ejections.get(instance.getServiceId()).increment();
+            log.warn("Ejected {} instance {} after {} consecutive failures",
+                    instance.getServiceId(), instance.getUri(), properties.getFailureThreshold());
+        }
+    }
+
+    /**
+     * Hand back the instance of a cancelled request, which says nothing about its health or latency
+     */
+    public void release(UpstreamInstance instance) {
+        instance.released();
+    }
+
+    private static UpstreamInstance powerOfTwoChoices(List<UpstreamInstance> candidates) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = candidates.size();
+
+        // A few draws are enough to find an admitted pair unless most instances are ejected
+        UpstreamInstance first = null;
+        UpstreamInstance second = null;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            int i = random.nextInt(size);
+            int j = random.nextInt(size - 1);
+            if (j >= i) {
+                j++;
+            }
+            first = candidates.get(i);
+            second = candidates.get(j);
+            if (!first.isEjected() || !second.isEjected()) {
+                break;
+            }
+        }
+
+        if (first.isEjected() != second.isEjected()) {
+            return first.isEjected() ? second : first;
+        }
+        return first.score() <= second.score() ? first : second;
+    }
+
+    private Mono<Void> probeEjected() {
+        return Flux.fromIterable(instances.values())
+                .flatMapIterable(serviceInstances -> serviceInstances)
+                .filter(UpstreamInstance::isEjected)
+                .flatMap(instance -> probe(instance)
+                        .filter(Boolean::booleanValue)
+                        .doOnNext(up -> {
+                            instance.readmit();
+                            log.info("Re-admitted {} instance {} after a successful probe",
+                                    instance.getServiceId(), instance.getUri());
+                        }))
+                .then();
+    }
+
+    private Mono<Boolean> probe(UpstreamInstance instance) {
+        String healthPath = properties.getServices().get(instance.getServiceId()).getHealthPath();
+        return webClient.get()
+                .uri(instance.getUri().resolve(healthPath))
+                .exchangeToMono(response -> response.releaseBody()
+                        .thenReturn(response.statusCode().is2xxSuccessful()))
+                .timeout(properties.getProbeTimeout())
+                .onErrorReturn(false);
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, UpstreamInstance instance) {
+        Tags tags = Tags.of("service", instance.getServiceId(), "instance", instance.getUri().getAuthority());
+        Gauge.builder("gateway.lb.inflight", instance, UpstreamInstance::getInFlight)
+                .description("Requests in flight to the instance")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("gateway.lb.latency", instance, i -> i.getLatencyNanos() / 1_000_000_000.0)
+                .description("Peak EWMA response latency of the instance")
+                .baseUnit("seconds")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("gateway.lb.available", instance, i -> i.isEjected() ? 0 : 1)
+                .description("Whether the instance receives traffic")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
@@ -17,17 +17,17 @@ public class MetricsService {
 
     private final GatewayMetricsCollector metricsCollector;
 
-    public void recordRequest(String method, String path, int status, long duration) {
+    /**
+     * Record a routed request; upstreamNanos is negative when the request never reached the upstream
+     */
+    public void recordRequest(String routeId, String method, int status, long durationNanos, long upstreamNanos) {
         metricsCollector.incrementRequestCount();
-        metricsCollector.recordRequestWithTags(method, path, status);
-        metricsCollector.recordRequestDuration(duration, TimeUnit.MILLISECONDS);
+        metricsCollector.recordRouteRequest(routeId, method, status, durationNanos, upstreamNanos);
+        metricsCollector.recordRequestDuration(durationNanos, TimeUnit.NANOSECONDS);
 
         if (status >= 400) {
             metricsCollector.incrementErrorCount();
         }
-
-        log.debug("Recorded metrics - Method: {}, Path: {}, Status: {}, Duration: {}ms",
-                method, path, status, duration);
     }
 
     public void recordRateLimitExceeded() {
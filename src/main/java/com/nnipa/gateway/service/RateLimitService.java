@@ -1,55 +1,77 @@
 package com.nnipa.gateway.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.RateLimitDecision;
+import com.nnipa.gateway.model.RateLimitKey;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Rate limiting service using Bucket4j
+ * Buckets live in a store bounded by api-gateway.rate-limiting.cache-size;
+ * idle buckets are evicted after api-gateway.rate-limiting.idle-timeout, which
+ * is equivalent to them refilling to full capacity.
  */
 @Slf4j
 @Service
 public class RateLimitService {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-    private final Map<String, Instant> resetTimes = new ConcurrentHashMap<>();
+    private final Cache<RateLimitKey, Bucket> buckets;
+
+    public RateLimitService(ApiGatewayProperties properties) {
+        ApiGatewayProperties.RateLimiting rateLimiting = properties.getRateLimiting();
+
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimiting.getCacheSize())
+                .expireAfterAccess(rateLimiting.getIdleTimeout())
+                .build();
+    }
 
     /**
-     * Check if request is allowed based on rate limit
+     * Try to consume a token and report the resulting bucket state in one probe
      */
-    public boolean allowRequest(String key, int requestsPerSecond, int burstCapacity) {
+    public RateLimitDecision tryConsume(RateLimitKey key, int requestsPerSecond, int burstCapacity) {
         Bucket bucket = getBucket(key, requestsPerSecond, burstCapacity);
-        boolean allowed = bucket.tryConsume(1);
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
 
-        if (allowed) {
+        if (probe.isConsumed()) {
             log.debug("Rate limit allowed for key: {}", key);
         } else {
             log.debug("Rate limit denied for key: {}", key);
         }
 
-        return allowed;
+        return new RateLimitDecision(
+                probe.isConsumed(),
+                probe.getRemainingTokens(),
+                probe.getNanosToWaitForRefill(),
+                probe.getNanosToWaitForReset());
+    }
+
+    /**
+     * Check if request is allowed based on rate limit
+     */
+    public boolean allowRequest(RateLimitKey key, int requestsPerSecond, int burstCapacity) {
+        return tryConsume(key, requestsPerSecond, burstCapacity).allowed();
     }
 
     /**
      * Get or create bucket for the given key
      */
-    private Bucket getBucket(String key, int requestsPerSecond, int burstCapacity) {
-        return buckets.computeIfAbsent(key, k -> {
+    private Bucket getBucket(RateLimitKey key, int requestsPerSecond, int burstCapacity) {
+        return buckets.get(key, k -> {
             Bandwidth limit = Bandwidth.classic(
                     burstCapacity,
                     Refill.intervally(requestsPerSecond, Duration.ofSeconds(1))
             );
 
-            // Set reset time
-            resetTimes.put(key, Instant.now().plusSeconds(1));
-
             return Bucket.builder()
                     .addLimit(limit)
                     .build();
@@ -59,26 +81,23 @@ public class RateLimitService {
     /**
      * Get remaining tokens for a key
      */
-    public long getRemainingTokens(String key) {
-        Bucket bucket = buckets.get(key);
+    public long getRemainingTokens(RateLimitKey key) {
+        Bucket bucket = buckets.getIfPresent(key);
         return bucket != null ? bucket.getAvailableTokens() : 0;
     }
 
     /**
-     * Get reset time for a key
+     * Number of buckets currently held
      */
-    public long getResetTime(String key) {
-        Instant resetTime = resetTimes.get(key);
-        return resetTime != null ? resetTime.toEpochMilli() :
-                Instant.now().plusSeconds(1).toEpochMilli();
+    public long size() {
+        return buckets.estimatedSize();
     }
 
     /**
      * Reset rate limit for a key
      */
-    public void reset(String key) {
-        buckets.remove(key);
-        resetTimes.remove(key);
+    public void reset(RateLimitKey key) {
+        buckets.invalidate(key);
         log.info("Rate limit reset for key: {}", key);
     }
 
@@ -86,8 +105,7 @@ public class RateLimitService {
      * Clear all rate limits (for testing/admin purposes)
      */
     public void clearAll() {
-        buckets.clear();
-        resetTimes.clear();
+        buckets.invalidateAll();
         log.info("All rate limits cleared");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.nnipa.gateway.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps extra upstream requests (hedges, retries) at a fraction of regular traffic
+ * Every regular request deposits ratio tokens, up to burst tokens; every
+ * extra request withdraws a whole token and is refused when none is left.
+ * The extra load an upstream sees therefore stays bounded by the ratio even
+ * while it is slow or failing, which is when extra requests are most tempting.
+ */
+public class RequestBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RequestBudget(double ratio, int burst) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = Math.max(1, burst) * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Credit the budget for one regular request
+     */
+    public void deposit() {
+        if (balance.get() < capacity) {
+            balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+        }
+    }
+
+    /**
+     * Take one token for an extra request, or return false if the budget is spent
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    public double getBalance() {
+        return balance.get() / (double) SCALE;
+    }
+}
@@ -0,0 +1,173 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.CachedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of in-flight upstream calls shared by identical requests
+ * The first request for a key leads: it proxies as usual, streaming its
+ * response. Requests arriving before the leader's response starts follow
+ * it and wait for a copy instead of making their own call; the call stops
+ * taking followers once the response starts, so the body is only copied
+ * when someone is actually waiting. Followers get an empty result, and
+ * proxy on their own, when the response cannot be shared (too large,
+ * streamed, or the leader went away mid-body).
+ */
+@Slf4j
+@Service
+public class RequestCoalescingService {
+
+    private final ApiGatewayProperties.Coalescing properties;
+    private final Map<String, SharedCall> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter unshared;
+
+    public RequestCoalescingService(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getCoalescing();
+
+        this.leaders = requestCounter(meterRegistry, "leader");
+        this.followers = requestCounter(meterRegistry, "follower");
+        this.unshared = Counter.builder("gateway.coalescing.unshared")
+                .description("Leader responses that could not be shared, so their followers proxied on their own")
+                .register(meterRegistry);
+        Gauge.builder("gateway.coalescing.inflight", inFlight, Map::size)
+                .description("Upstream calls currently shared by coalesced requests")
+                .register(meterRegistry);
+    }
+
+    public Duration getDefaultTimeout() {
+        return properties.getTimeout();
+    }
+
+    public long getMaxBodyBytes() {
+        return properties.getMaxBodySize().toBytes();
+    }
+
+    /**
+     * Follow the in-flight call for the key, or lead a new one
+     */
+    public Membership join(String key) {
+        while (true) {
+            SharedCall existing = inFlight.get(key);
+            if (existing != null && existing.follow()) {
+                followers.increment();
+                return new Membership(existing, false);
+            }
+            SharedCall created = new SharedCall(key);
+            boolean registered = existing == null
+                    ? inFlight.putIfAbsent(key, created) == null
+                    : inFlight.replace(key, existing, created);
+            if (registered) {
+                leaders.increment();
+                return new Membership(created, true);
+            }
+        }
+    }
+
+    private static ResponseStatusException timedOut() {
+        return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Timed out waiting for a coalesced upstream response");
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String role) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("Requests served by a shared upstream call, by whether they started it")
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A request's part in a shared call
+     *
+     * @param call   the call it joined
+     * @param leader whether it proxies for the call, rather than waiting on it
+     */
+    public record Membership(SharedCall call, boolean leader) {
+    }
+
+    /**
+     * One leader's upstream call, open to followers until its response starts
+     */
+    public final class SharedCall {
+
+        private static final int CLOSED = -1;
+
+        private final String key;
+        private final AtomicInteger followerCount = new AtomicInteger();
+        private final Sinks.One<CachedResponse> response = Sinks.one();
+        private volatile int joined;
+
+        private SharedCall(String key) {
+            this.key = key;
+        }
+
+        private boolean follow() {
+            int count;
+            do {
+                count = followerCount.get();
+                if (count == CLOSED) {
+                    return false;
+                }
+            } while (!followerCount.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Stop taking followers, returning whether any are waiting for a share or abandon
+         */
+        public boolean close() {
+            int count = followerCount.getAndSet(CLOSED);
+            if (count == CLOSED) {
+                return false;
+            }
+            inFlight.remove(key, this);
+            joined = count;
+            return count > 0;
+        }
+
+        public void share(CachedResponse shared) {
+            close();
+            response.tryEmitValue(shared);
+        }
+
+        /**
+         * Fail the followers with the leader's error, as they would have met it themselves
+         */
+        public void fail(Throwable error) {
+            close();
+            response.tryEmitError(error);
+        }
+
+        /**
+         * Send the followers off to proxy on their own; no-op once shared or failed
+         */
+        public void abandon() {
+            close();
+            if (response.tryEmitEmpty().isSuccess() && joined > 0) {
+                unshared.increment();
+            }
+        }
+
+        /**
+         * The leader's response for a follower, or empty if it must proxy on its own
+         */
+        public Mono<CachedResponse> response(Duration timeout) {
+            return response.asMono()
+                    .timeout(timeout, Mono.error(RequestCoalescingService::timedOut));
+        }
+    }
+}
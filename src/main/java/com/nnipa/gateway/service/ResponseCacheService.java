@@ -0,0 +1,167 @@
+package com.nnipa.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.CachedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory store for cacheable GET responses
+ * Entries are weighed by their size in bytes and bounded by
+ * api-gateway.response-cache.max-size; Caffeine's W-TinyLFU admission keeps
+ * frequently read responses over one-off ones. Each entry expires at its own
+ * freshness lifetime.
+ * Responses with a Vary header are stored per variant: the primary key
+ * (route, path, query, key headers) maps to the Vary header names, and
+ * their request values complete the key of the stored response.
+ */
+@Slf4j
+@Service
+public class ResponseCacheService {
+
+    private final ApiGatewayProperties.ResponseCache properties;
+    private final Cache<String, CachedResponse> responses;
+    private final Cache<String, List<String>> varyIndex;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private final Counter bytesSaved;
+
+    public ResponseCacheService(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getResponseCache();
+
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(this.properties.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse response) -> 2 * key.length() + response.weight())
+                .expireAfter(new FreshnessExpiry())
+                .build();
+
+        this.varyIndex = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.bypasses = lookupCounter(meterRegistry, "bypass");
+        this.bytesSaved = Counter.builder("gateway.response.cache.bytes.saved")
+                .description("Response bytes served from the cache instead of the upstream")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        Gauge.builder("gateway.response.cache.hit.ratio", this, ResponseCacheService::hitRatio)
+                .description("Share of cache lookups served from the cache")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.size", responses, cache -> cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .description("Bytes held by the response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public long getMaxEntryBytes() {
+        return properties.getMaxEntrySize().toBytes();
+    }
+
+    public Duration getDefaultTtl() {
+        return properties.getDefaultTtl();
+    }
+
+    /**
+     * Fresh cached response for the request, or null
+     *
+     * @param headerValue effective value of a request header, for Vary matching
+     */
+    public CachedResponse lookup(String primaryKey, UnaryOperator<String> headerValue) {
+        List<String> vary = varyIndex.getIfPresent(primaryKey);
+        CachedResponse cached = vary != null
+                ? responses.getIfPresent(variantKey(primaryKey, vary, headerValue))
+                : null;
+
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        bytesSaved.increment(cached.body().length);
+        return cached;
+    }
+
+    public void store(String primaryKey, UnaryOperator<String> headerValue, CachedResponse response) {
+        varyIndex.put(primaryKey, response.vary());
+        responses.put(variantKey(primaryKey, response.vary(), headerValue), response);
+        log.debug("Cached response for {} ({} bytes)", primaryKey, response.body().length);
+    }
+
+    /**
+     * Count a request that skipped the cache because of its own Cache-Control
+     */
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    public void clearAll() {
+        responses.invalidateAll();
+        varyIndex.invalidateAll();
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups > 0 ? hits.count() / lookups : 0.0;
+    }
+
+    private static String variantKey(String primaryKey, List<String> vary, UnaryOperator<String> headerValue) {
+        if (vary.isEmpty()) {
+            return primaryKey;
+        }
+        StringBuilder key = new StringBuilder(primaryKey.length() + 32 * vary.size()).append(primaryKey);
+        for (String name : vary) {
+            String value = headerValue.apply(name);
+            key.append('\n').append(name).append('=').append(value != null ? value : "");
+        }
+        return key.toString();
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.response.cache")
+                .description("Response cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Expires each response at its own freshness lifetime
+     */
+    private static final class FreshnessExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry budgets, backoff and circuit breaker checks for upstream retries
+ * Each upstream (lb:// service or host) gets a RequestBudget shared by all of
+ * its routes, so retries add at most budget-ratio extra load however many
+ * routes retry against it. Exposes gateway.retry.attempts and
+ * gateway.retry.skipped{reason=budget|circuit-open} counters per upstream.
+ */
+@Slf4j
+@Service
+public class RetryService {
+
+    private final ApiGatewayProperties.Retry properties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final Map<String, UpstreamRetries> upstreams = new ConcurrentHashMap<>();
+
+    public RetryService(ApiGatewayProperties properties, MeterRegistry meterRegistry,
+                        ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry) {
+        this.properties = properties.getRetry();
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry.getIfAvailable();
+        if (this.circuitBreakerRegistry == null) {
+            log.warn("No CircuitBreakerRegistry available; retries will not check circuit state");
+        }
+    }
+
+    public UpstreamRetries forUpstream(String upstream) {
+        return upstreams.computeIfAbsent(upstream, this::register);
+    }
+
+    /**
+     * Decorrelated jitter: a random delay between base and three times the previous
+     * one, capped at max, so clients that failed together do not retry in lockstep
+     */
+    public Duration backoff(Duration base, Duration max, Duration previous) {
+        long baseMillis = Math.max(1, base.toMillis());
+        long upper = Math.max(baseMillis + 1, previous.toMillis() * 3);
+        long delay = ThreadLocalRandom.current().nextLong(baseMillis, upper);
+        return Duration.ofMillis(Math.min(max.toMillis(), delay));
+    }
+
+    /**
+     * Whether the circuit breaker would let a call through; retries stop once it opens or is probing
+     */
+    public boolean isCircuitClosed(String circuitBreakerName) {
+        if (circuitBreakerRegistry == null || circuitBreakerName == null) {
+            return true;
+        }
+        return circuitBreakerRegistry.find(circuitBreakerName)
+                .map(CircuitBreaker::getState)
+                .map(state -> state == CircuitBreaker.State.CLOSED
+                        || state == CircuitBreaker.State.DISABLED
+                        || state == CircuitBreaker.State.METRICS_ONLY)
+                .orElse(true);
+    }
+
+    private UpstreamRetries register(String upstream) {
+        Tags tags = Tags.of("upstream", upstream);
+        return new UpstreamRetries(
+                new RequestBudget(properties.getBudgetRatio(), properties.getBudgetBurst()),
+                Counter.builder("gateway.retry.attempts")
+                        .description("Retries sent to the upstream")
+                        .tags(tags)
+                        .register(meterRegistry),
+                skipped(tags, "budget"),
+                skipped(tags, "circuit-open"));
+    }
+
+    private Counter skipped(Tags tags, String reason) {
+        return Counter.builder("gateway.retry.skipped")
+                .description("Retryable failures returned without retrying")
+                .tags(tags.and("reason", reason))
+                .register(meterRegistry);
+    }
+
+    public static final class UpstreamRetries {
+
+        private final RequestBudget budget;
+        private final Counter attempts;
+        private final Counter budgetExhausted;
+        private final Counter circuitOpen;
+
+        private UpstreamRetries(RequestBudget budget, Counter attempts, Counter budgetExhausted, Counter circuitOpen) {
+            this.budget = budget;
+            this.attempts = attempts;
+            this.budgetExhausted = budgetExhausted;
+            this.circuitOpen = circuitOpen;
+        }
+
+        /**
+         * Credit the retry budget for one request
+         */
+        public void onRequest() {
+            budget.deposit();
+        }
+
+        /**
+         * Take a retry from the budget, or return false if it is spent
+         */
+        public boolean tryRetry() {
+            if (budget.tryWithdraw()) {
+                attempts.increment();
+                return true;
+            }
+            budgetExhausted.increment();
+            return false;
+        }
+
+        public void onCircuitOpen() {
+            circuitOpen.increment();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.nnipa.gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes indexed by the segments of their Path predicate patterns
+ * Looking up a request walks a segment trie (literal segments, then
+ * single-segment wildcards, with "**" and "{*var}" matching the rest), so the
+ * candidates are found in O(path depth) however many routes there are. Only
+ * candidates have their full predicate evaluated, which still decides the
+ * match; the trie only rules routes out. Routes without a Path predicate are
+ * candidates for every request.
+ * Candidates are tried in an explicit precedence: lower route order first,
+ * then routes with a Path predicate, then the most specific pattern (per
+ * PathPattern.SPECIFICITY_COMPARATOR: fewer wildcards and captures, longer
+ * literals), then declaration order. So "/api/v1/authz/admin/**" wins over
+ * "/api/v1/authz/**" wherever the two are declared.
+ * Immutable once built; rebuild it for a new route table.
+ */
+@Slf4j
+public final class RouteIndex {
+
+    private static final PathPatternParser PARSER = PathPatternParser.defaultInstance;
+
+    private final Node root = new Node();
+    private final List<Entry> unindexed = new ArrayList<>();
+    private final int indexedRoutes;
+
+    private RouteIndex(List<Route> routes, Map<String, List<String>> pathPatterns) {
+        List<Entry> entries = new ArrayList<>();
+        for (int position = 0; position < routes.size(); position++) {
+            Route route = routes.get(position);
+            List<PathPattern> patterns = parse(route, pathPatterns.get(route.getId()));
+            if (patterns.isEmpty()) {
+                entries.add(new Entry(route, null, position));
+            } else {
+                for (PathPattern pattern : patterns) {
+                    entries.add(new Entry(route, pattern, position));
+                }
+            }
+        }
+
+        entries.sort(Comparator.<Entry>comparingInt(entry -> entry.route().getOrder())
+                .thenComparing(entry -> entry.pattern() == null)
+                .thenComparing(Entry::pattern, Comparator.nullsLast(PathPattern.SPECIFICITY_COMPARATOR))
+                .thenComparingInt(Entry::position));
+
+        int indexed = 0;
+        for (int rank = 0; rank < entries.size(); rank++) {
+            Entry entry = entries.get(rank).withRank(rank);
+            if (entry.pattern() == null) {
+                unindexed.add(entry);
+            } else {
+                insert(entry);
+                indexed++;
+            }
+        }
+        this.indexedRoutes = indexed;
+        log.debug("Indexed {} path patterns, {} routes without a Path predicate", indexed, unindexed.size());
+    }
+
+    /**
+     * Index the routes, reading Path patterns from each route's definition by id
+     *
+     * @param routes       routes in the route locator's order
+     * @param pathPatterns Path predicate patterns per route id; routes missing here are never ruled out
+     */
+    public static RouteIndex build(List<Route> routes, Map<String, List<String>> pathPatterns) {
+        return new RouteIndex(routes, pathPatterns);
+    }
+
+    public int getIndexedPatterns() {
+        return indexedRoutes;
+    }
+
+    public int getUnindexedRoutes() {
+        return unindexed.size();
+    }
+
+    /**
+     * The first candidate route, in precedence order, whose predicate accepts the exchange
+     */
+    public Mono<Route> lookup(ServerWebExchange exchange) {
+        List<Route> candidates = candidates(exchange.getRequest().getPath().pathWithinApplication());
+        return Flux.fromIterable(candidates)
+                .concatMap(route -> Mono.just(route).filterWhen(candidate -> {
+                    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR, candidate.getId());
+                    return candidate.getPredicate().apply(exchange);
+                }).onErrorResume(e -> {
+                    log.error("Error applying predicate for route: {}", route.getId(), e);
+                    return Mono.empty();
+                }))
+                .next();
+    }
+
+    /**
+     * Routes that could match the path, in precedence order
+     */
+    public List<Route> candidates(PathContainer path) {
+        List<String> segments = new ArrayList<>();
+        for (PathContainer.Element element : path.elements()) {
+            if (element instanceof PathContainer.PathSegment segment && !segment.valueToMatch().isEmpty()) {
+                segments.add(segment.valueToMatch());
+            }
+        }
+
+        List<Entry> matched = new ArrayList<>(unindexed);
+        root.collect(segments, 0, matched);
+        matched.sort(Comparator.comparingInt(Entry::rank));
+
+        List<Route> routes = new ArrayList<>(matched.size());
+        for (Entry entry : matched) {
+            // A route with several patterns may be reached more than once
+            if (!routes.contains(entry.route())) {
+                routes.add(entry.route());
+            }
+        }
+        return routes;
+    }
+
+    private void insert(Entry entry) {
+        Node node = root;
+        for (String segment : entry.pattern().getPatternString().split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals("**") || segment.startsWith("{*")) {
+                node.rest.add(entry);
+                return;
+            }
+            // Segments with wildcards or captures anywhere in them match any one segment here
+            node = segment.contains("*") || segment.contains("?") || segment.contains("{")
+                    ? node.anySegment()
+                    : node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.terminal.add(entry);
+    }
+
+    private static List<PathPattern> parse(Route route, List<String> patterns) {
+        List<PathPattern> parsed = new ArrayList<>();
+        if (patterns == null) {
+            return parsed;
+        }
+        for (String pattern : patterns) {
+            try {
+                parsed.add(PARSER.parse(pattern));
+            } catch (RuntimeException e) {
+                // Left to linear evaluation, where the route's own predicate reports it
+                log.warn("Route {} path pattern {} not indexed: {}", route.getId(), pattern, e.getMessage());
+                return List.of();
+            }
+        }
+        return parsed;
+    }
+
+    private record Entry(Route route, PathPattern pattern, int position, int rank) {
+
+        Entry(Route route, PathPattern pattern, int position) {
+            this(route, pattern, position, -1);
+        }
+
+        Entry withRank(int rank) {
+            return new Entry(route, pattern, position, rank);
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Entry> terminal = new ArrayList<>(1);
+        private final List<Entry> rest = new ArrayList<>(1);
+        private Node wildcard;
+
+        private Node anySegment() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+
+        private void collect(List<String> segments, int index, List<Entry> matched) {
+            matched.addAll(rest);
+            if (index == segments.size()) {
+                matched.addAll(terminal);
+                return;
+            }
+            Node child = children.isEmpty() ? null : children.get(segments.get(index));
+            if (child != null) {
+                child.collect(segments, index + 1, matched);
+            }
+            if (wildcard != null) {
+                wildcard.collect(segments, index + 1, matched);
+            }
+        }
+    }
+}
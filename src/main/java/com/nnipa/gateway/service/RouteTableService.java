@@ -0,0 +1,337 @@
+package com.nnipa.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.filter.factory.GatewayFilterFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.handler.predicate.RoutePredicateFactory;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.support.Configurable;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.cloud.gateway.support.NameUtils;
+import org.springframework.cloud.gateway.support.ShortcutConfigurable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.yaml.snakeyaml.Yaml;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Route definitions from an external YAML or JSON file, reloaded without a restart
+ * The file (api-gateway.route-table.file) has the same shape as
+ * spring.cloud.gateway routes, under a top-level "routes" key, and its routes
+ * are served alongside those in application.yml. A WatchService thread picks
+ * up changes; the new file is parsed and validated on that thread (unique
+ * ids, known predicates and filters whose args bind to their configs as
+ * RouteDefinitionRouteLocator will bind them, Path patterns and RewritePath
+ * regexes that compile) and, if valid, a RefreshRoutesEvent makes
+ * CachingRouteLocator build the new table, predicates and filters included,
+ * and replace the old one in a single swap. Requests in flight keep the
+ * route they matched. An invalid file is logged and the current table stays.
+ * The generation counts the file versions activated: 1 for a file loaded at
+ * startup, then one more for each reload once its table is built. Refreshes
+ * from elsewhere (startup, actuator) leave it alone.
+ */
+@Slf4j
+@Service
+public class RouteTableService implements RouteDefinitionLocator {
+
+    private final ApiGatewayProperties.RouteTable properties;
+    private final GatewayProperties gatewayProperties;
+    private final ObjectProvider<RoutePredicateFactory<?>> predicateFactories;
+    private final ObjectProvider<GatewayFilterFactory<?>> filterFactories;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final ConfigurationService configurationService;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final Counter rejectedReloads;
+
+    private volatile List<RouteDefinition> definitions = List.of();
+    private volatile Instant activatedAt;
+    private String loadedContent;
+    private WatchService watchService;
+
+    public RouteTableService(ApiGatewayProperties properties, GatewayProperties gatewayProperties,
+                             ObjectProvider<RoutePredicateFactory<?>> predicateFactories,
+                             ObjectProvider<GatewayFilterFactory<?>> filterFactories,
+                             ApplicationEventPublisher eventPublisher, Environment environment,
+                             ObjectMapper objectMapper, ConfigurationService configurationService,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties.getRouteTable();
+        this.gatewayProperties = gatewayProperties;
+        this.predicateFactories = predicateFactories;
+        this.filterFactories = filterFactories;
+        this.eventPublisher = eventPublisher;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.configurationService = configurationService;
+
+        this.rejectedReloads = Counter.builder("gateway.routes.reloads.rejected")
+                .description("Route file changes rejected by validation")
+                .register(meterRegistry);
+        Gauge.builder("gateway.routes.generation", generation, AtomicLong::get)
+                .description("Generation of the active route table")
+                .register(meterRegistry);
+
+        if (StringUtils.hasText(this.properties.getFile())) {
+            Path file = Path.of(this.properties.getFile());
+            if (Files.exists(file)) {
+                // A broken file at startup is a deployment error, not something to run without
+                List<RouteDefinition> loaded = load(file);
+                if (loaded == null) {
+                    throw new IllegalStateException("Invalid route file " + file);
+                }
+                definitions = loaded;
+                generation.set(1);
+            } else {
+                log.warn("Route file {} does not exist yet; it will be loaded once created", file);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!StringUtils.hasText(properties.getFile())) {
+            return;
+        }
+        Path directory = Path.of(properties.getFile()).toAbsolutePath().getParent();
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        // WatchService.take blocks, so it gets its own thread rather than a shared scheduler
+        Thread.ofPlatform().name("route-file-watcher").daemon().start(this::watch);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    @Override
+    public Flux<RouteDefinition> getRouteDefinitions() {
+        return Flux.fromIterable(definitions);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public Instant getActivatedAt() {
+        return activatedAt;
+    }
+
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (!reloadPending.getAndSet(false)) {
+            // The startup build, or a refresh this service did not ask for; the file routes are unchanged
+            if (event.isSuccess() && activatedAt == null) {
+                activatedAt = Instant.now();
+            }
+            return;
+        }
+        if (event.isSuccess()) {
+            activatedAt = Instant.now();
+            log.info("Activated route table generation {}", generation.incrementAndGet());
+        } else {
+            log.error("Route table rebuild failed, keeping generation {}", generation.get(), event.getThrowable());
+        }
+    }
+
+    private void watch() {
+        Path file = Path.of(properties.getFile()).toAbsolutePath();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = key.pollEvents().stream()
+                        .anyMatch(event -> file.getFileName().equals(event.context()));
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+                // Editors and deploy tools write in several steps; wait for the file to settle
+                Thread.sleep(properties.getReloadDelay().toMillis());
+                WatchKey pending;
+                while ((pending = watchService.poll()) != null) {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Route file watcher stopped");
+        }
+    }
+
+    /**
+     * Load the file again and, if it changed and is valid, rebuild the route table from it
+     */
+    void reload() {
+        Path file = Path.of(properties.getFile()).toAbsolutePath();
+        List<RouteDefinition> loaded = load(file);
+        if (loaded == null) {
+            rejectedReloads.increment();
+            return;
+        }
+        if (loaded == definitions) {
+            return;
+        }
+        definitions = loaded;
+        reloadPending.set(true);
+        log.info("Route file {} changed, rebuilding the route table with {} file routes", file, loaded.size());
+        eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+    }
+
+    /**
+     * Parse and validate the file; null if it is invalid, the current definitions if it did not change
+     */
+    private List<RouteDefinition> load(Path file) {
+        String content;
+        RouteFile routeFile;
+        try {
+            content = environment.resolvePlaceholders(Files.readString(file));
+            if (content.equals(loadedContent)) {
+                return definitions;
+            }
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            routeFile = name.endsWith(".json")
+                    ? objectMapper.readValue(content, RouteFile.class)
+                    : objectMapper.convertValue(new Yaml().load(content), RouteFile.class);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not parse route file {}: {}", file, e.getMessage());
+            return null;
+        }
+
+        List<RouteDefinition> routes = routeFile != null && routeFile.routes() != null ? routeFile.routes() : List.of();
+        List<String> errors = validate(routes);
+        if (!errors.isEmpty()) {
+            log.error("Rejected route file {}: {}", file, String.join("; ", errors));
+            return null;
+        }
+        loadedContent = content;
+        return List.copyOf(routes);
+    }
+
+    private List<String> validate(List<RouteDefinition> routes) {
+        Map<String, RoutePredicateFactory<?>> predicates = predicateFactories.orderedStream()
+                .collect(Collectors.toMap(RoutePredicateFactory::name, Function.identity(), (first, other) -> first));
+        Map<String, GatewayFilterFactory<?>> filters = filterFactories.orderedStream()
+                .collect(Collectors.toMap(GatewayFilterFactory::name, Function.identity(), (first, other) -> first));
+        Set<String> ids = gatewayProperties.getRoutes().stream()
+                .map(RouteDefinition::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        List<String> errors = new ArrayList<>();
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        for (RouteDefinition route : routes) {
+            String id = route.getId();
+            if (!StringUtils.hasText(id) || !ids.add(id)) {
+                errors.add("missing or duplicate route id '" + id + "'");
+                continue;
+            }
+            if (route.getUri() == null || route.getUri().getScheme() == null) {
+                errors.add(id + ": uri must be absolute");
+            }
+            for (PredicateDefinition predicate : route.getPredicates()) {
+                RoutePredicateFactory<?> factory = predicates.get(predicate.getName());
+                if (factory == null) {
+                    errors.add(id + ": unknown predicate " + predicate.getName());
+                    continue;
+                }
+                String bindError = bind(factory, predicate.getName(), predicate.getArgs());
+                if (bindError != null) {
+                    errors.add(id + ": invalid " + predicate.getName() + " args: " + bindError);
+                } else if (predicate.getName().equals("Path")) {
+                    for (String pattern : predicate.getArgs().values()) {
+                        try {
+                            parser.parse(pattern);
+                        } catch (RuntimeException e) {
+                            errors.add(id + ": invalid path pattern " + pattern);
+                        }
+                    }
+                }
+            }
+            for (FilterDefinition filter : route.getFilters()) {
+                GatewayFilterFactory<?> factory = filters.get(filter.getName());
+                if (factory == null) {
+                    errors.add(id + ": unknown filter " + filter.getName());
+                    continue;
+                }
+                String bindError = bind(factory, filter.getName(), filter.getArgs());
+                if (bindError != null) {
+                    errors.add(id + ": invalid " + filter.getName() + " args: " + bindError);
+                } else if (filter.getName().equals("RewritePath")) {
+                    String regexp = rewritePathRegexp(filter.getArgs());
+                    try {
+                        Pattern.compile(regexp);
+                    } catch (PatternSyntaxException | NullPointerException e) {
+                        errors.add(id + ": invalid RewritePath regexp " + regexp);
+                    }
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Bind the args to a new config of the factory, returning why they do not bind or null
+     */
+    private <T, C extends Configurable<T> & ShortcutConfigurable> String bind(C factory, String name,
+                                                                             Map<String, String> args) {
+        try {
+            configurationService.with(factory).name(name).properties(args).bind();
+            return null;
+        } catch (RuntimeException e) {
+            return NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        }
+    }
+
+    private static String rewritePathRegexp(Map<String, String> args) {
+        String regexp = args.get("regexp");
+        return regexp != null ? regexp : args.get(NameUtils.generateName(0));
+    }
+
+    record RouteFile(List<RouteDefinition> routes) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.VerifiedPrincipal;
+import com.nnipa.gateway.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revoked tokens (by jti) and users, checked on every authenticated request
+ * The exact sets sit behind a Bloom filter sized from expected-entries, so a
+ * token that was never revoked, the common case, costs a few bit reads and no
+ * allocation; the sets are only consulted on a Bloom hit. Revoking a user
+ * rejects their tokens issued up to the revocation, so they can sign in again.
+ * Entries come from POST /gateway/revocations or a local file and are dropped
+ * once the revoked token's exp has passed, when the filter is rebuilt without
+ * them. The file is re-read when it changes, one entry per line:
+ * "jti <id> <exp>" or "user <uuid> <exp> <revoked-at>", epoch seconds. The
+ * revoked-at of a user line is required: any time derived from the file
+ * itself would move on every edit and revoke the user's newer tokens again.
+ * Exposes gateway.auth.revocation{result=revoked|false-positive} and
+ * gateway.auth.revocation.entries.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final ApiGatewayProperties.Revocation properties;
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<UUID, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Counter revoked;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+    private long capacity;
+    private FileTime fileModified;
+    private Disposable tasks;
+
+    public TokenRevocationService(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getRevocation();
+        this.capacity = this.properties.getExpectedEntries();
+        this.filter = new BloomFilter(capacity, this.properties.getFalsePositiveRate());
+
+        this.revoked = resultCounter(meterRegistry, "revoked");
+        this.falsePositives = resultCounter(meterRegistry, "false-positive");
+        Gauge.builder("gateway.auth.revocation.entries", this, TokenRevocationService::size)
+                .description("Revoked tokens and users held by the gateway")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Disposable.Composite composite = Disposables.composite();
+        if (StringUtils.hasText(properties.getFile())) {
+            reloadFileIfModified();
+            // File checks are blocking I/O, so they stay off the event loops
+            composite.add(Flux.interval(properties.getRefreshInterval(), Schedulers.boundedElastic())
+                    .onBackpressureDrop()
+                    .subscribe(tick -> reloadFileIfModified()));
+        }
+        composite.add(Flux.interval(properties.getPurgeInterval(), Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .subscribe(tick -> purgeExpired()));
+        tasks = composite;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tasks != null) {
+            tasks.dispose();
+        }
+    }
+
+    /**
+     * Whether the token itself or its user has been revoked
+     */
+    public boolean isRevoked(VerifiedPrincipal principal) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        BloomFilter current = filter;
+
+        String tokenId = principal.getTokenId();
+        if (tokenId != null && current.mightContain(BloomFilter.hash(tokenId))) {
+            if (revokedTokens.containsKey(tokenId)) {
+                revoked.increment();
+                return true;
+            }
+            falsePositives.increment();
+        }
+
+        UUID userId = principal.getUserId();
+        if (userId != null && current.mightContain(userHash(userId))) {
+            UserRevocation revocation = revokedUsers.get(userId);
+            if (revocation != null && (principal.getIssuedAt() == null
+                    || principal.getIssuedAt().toEpochMilli() <= revocation.revokedAtMillis())) {
+                revoked.increment();
+                return true;
+            }
+            if (revocation == null) {
+                falsePositives.increment();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Revoke one token until its exp
+     */
+    public void revokeToken(String tokenId, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        synchronized (writeLock) {
+            revokedTokens.merge(tokenId, expiresAtMillis, Math::max);
+            filter.put(BloomFilter.hash(tokenId));
+        }
+        log.debug("Revoked token {} until {}", tokenId, expiresAtMillis);
+    }
+
+    /**
+     * Revoke the user's tokens issued up to revokedAt; expiresAt should be the latest exp among them
+     * Without expiresAt the entry is kept for default-ttl.
+     */
+    public void revokeUser(UUID userId, long revokedAtMillis, Long expiresAtMillis) {
+        long expires = expiresAtMillis != null
+                ? expiresAtMillis
+                : System.currentTimeMillis() + properties.getDefaultTtl().toMillis();
+        if (expires <= System.currentTimeMillis()) {
+            return;
+        }
+        synchronized (writeLock) {
+            revokedUsers.merge(userId, new UserRevocation(revokedAtMillis, expires), (existing, added) ->
+                    new UserRevocation(Math.max(existing.revokedAtMillis(), added.revokedAtMillis()),
+                            Math.max(existing.expiresAtMillis(), added.expiresAtMillis())));
+            filter.put(userHash(userId));
+        }
+        log.debug("Revoked tokens of user {} issued up to {}", userId, revokedAtMillis);
+    }
+
+    public String getPushToken() {
+        return properties.getPushToken();
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    /**
+     * Drop entries whose tokens have expired anyway and rebuild the filter without them
+     */
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            boolean removed = revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+            removed |= revokedUsers.values().removeIf(revocation -> revocation.expiresAtMillis() <= now);
+
+            int size = size();
+            boolean overfull = size > capacity;
+            if (overfull) {
+                // Past its expected size the false positive rate climbs quickly, so grow with headroom
+                capacity = Math.max(capacity, 2L * size);
+                log.info("Growing the revocation filter to {} entries", capacity);
+            }
+            if (removed || overfull) {
+                BloomFilter rebuilt = new BloomFilter(capacity, properties.getFalsePositiveRate());
+                revokedTokens.keySet().forEach(tokenId -> rebuilt.put(BloomFilter.hash(tokenId)));
+                revokedUsers.keySet().forEach(userId -> rebuilt.put(userHash(userId)));
+                filter = rebuilt;
+            }
+        }
+    }
+
+    private void reloadFileIfModified() {
+        Path file = Path.of(properties.getFile());
+        List<String> lines;
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(file);
+            if (modified.equals(fileModified)) {
+                return;
+            }
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            log.warn("Could not read revocation file {}: {}", file, e.toString());
+            return;
+        }
+        fileModified = modified;
+
+        int loaded = 0;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("\\s+");
+            try {
+                if (fields[0].equals("jti") && fields.length >= 3) {
+                    revokeToken(fields[1], TimeUnit.SECONDS.toMillis(Long.parseLong(fields[2])));
+                } else if (fields[0].equals("user") && fields.length >= 4) {
+                    revokeUser(UUID.fromString(fields[1]), TimeUnit.SECONDS.toMillis(Long.parseLong(fields[3])),
+                            TimeUnit.SECONDS.toMillis(Long.parseLong(fields[2])));
+                } else {
+                    log.warn("Ignoring revocation file line: {}", trimmed);
+                    continue;
+                }
+                loaded++;
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring revocation file line: {} ({})", trimmed, e.getMessage());
+            }
+        }
+        log.info("Loaded {} revocations from {}", loaded, file);
+    }
+
+    private static long userHash(UUID userId) {
+        return BloomFilter.hash(userId.getMostSignificantBits(), userId.getLeastSignificantBits());
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.auth.revocation")
+                .description("Revocation checks that hit the Bloom filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record UserRevocation(long revokedAtMillis, long expiresAtMillis) {
+    }
+}
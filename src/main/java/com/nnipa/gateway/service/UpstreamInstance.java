@@ -0,0 +1,99 @@
+package com.nnipa.gateway.service;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One instance of a load-balanced service and its live load and latency
+ * Latency is a peak-sensitive EWMA: a slower response raises it at once,
+ * faster ones pull it down with a time-based decay, so an instance that
+ * starts to struggle loses traffic quickly and wins it back gradually.
+ */
+public class UpstreamInstance {
+
+    private final String serviceId;
+    private final URI uri;
+    private final long decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile boolean ejected;
+    private double latencyNanos;
+    private long lastSampleNanos = System.nanoTime();
+
+    public UpstreamInstance(String serviceId, URI uri, long decayNanos) {
+        this.serviceId = serviceId;
+        this.uri = uri;
+        this.decayNanos = decayNanos;
+    }
+
+    /**
+     * Expected cost of sending one more request here; lower is better
+     */
+    public double score() {
+        double latency;
+        synchronized (this) {
+            latency = latencyNanos;
+        }
+        return (latency > 0 ? latency : 1) * (inFlight.get() + 1);
+    }
+
+    synchronized void recordLatency(long rttNanos) {
+        long now = System.nanoTime();
+        if (rttNanos > latencyNanos) {
+            latencyNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSampleNanos) / decayNanos);
+            latencyNanos = latencyNanos * weight + rttNanos * (1 - weight);
+        }
+        lastSampleNanos = now;
+    }
+
+    void acquired() {
+        inFlight.incrementAndGet();
+    }
+
+    void released() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Count a failure; true when it reaches the threshold and the instance is ejected
+     */
+    synchronized boolean recordFailure(int threshold) {
+        if (consecutiveFailures.incrementAndGet() >= threshold && !ejected) {
+            ejected = true;
+            return true;
+        }
+        return false;
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    void readmit() {
+        consecutiveFailures.set(0);
+        ejected = false;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+}
@@ -0,0 +1,85 @@
+package com.nnipa.gateway.util;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ThreadLocalAccessor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.util.context.Context;
+
+/**
+ * Correlation context for a request
+ * CorrelationIdFilter binds the effective ID to the exchange and to the Reactor
+ * context once; everything downstream reads it from here instead of going back
+ * to the request headers. With spring.reactor.context-propagation=auto, the
+ * MDC accessor registered below copies the Reactor context value into the
+ * logging MDC on whichever thread an operator runs, so %X{correlationId}
+ * resolves in every log line of the request.
+ */
+@Component
+public class CorrelationContext {
+
+    /**
+     * Reactor context key, also used as the MDC key
+     */
+    public static final String CORRELATION_ID_KEY = "correlationId";
+
+    private static final String CORRELATION_ID_ATTR = CorrelationContext.class.getName() + ".correlationId";
+
+    @PostConstruct
+    public void registerMdcPropagation() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(new MdcAccessor());
+    }
+
+    /**
+     * Make the correlation ID the effective one for this exchange
+     */
+    public static void bind(ServerWebExchange exchange, String correlationId) {
+        exchange.getAttributes().put(CORRELATION_ID_ATTR, correlationId);
+    }
+
+    /**
+     * Reactor context carrying the correlation ID to operators and, through them, the MDC
+     */
+    public static Context context(String correlationId) {
+        return Context.of(CORRELATION_ID_KEY, correlationId);
+    }
+
+    /**
+     * Effective correlation ID of the exchange
+     * Falls back to a valid client-supplied header for errors raised before
+     * CorrelationIdFilter ran (e.g. no matching route); null if there is none.
+     */
+    public static String get(ServerWebExchange exchange) {
+        String correlationId = exchange.getAttribute(CORRELATION_ID_ATTR);
+        if (correlationId != null) {
+            return correlationId;
+        }
+        String header = exchange.getRequest().getHeaders().getFirst(CorrelationIdUtils.getHeaderName());
+        return CorrelationIdUtils.isValid(header) ? header : null;
+    }
+
+    private static final class MdcAccessor implements ThreadLocalAccessor<String> {
+
+        @Override
+        public Object key() {
+            return CORRELATION_ID_KEY;
+        }
+
+        @Override
+        public String getValue() {
+            return MDC.get(CORRELATION_ID_KEY);
+        }
+
+        @Override
+        public void setValue(String value) {
+            MDC.put(CORRELATION_ID_KEY, value);
+        }
+
+        @Override
+        public void setValue() {
+            MDC.remove(CORRELATION_ID_KEY);
+        }
+    }
+}
@@ -1,28 +1,64 @@
 package com.nnipa.gateway.util;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class CorrelationIdUtils {
 
     private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Time-ordered UUID (version 7 layout): 48 bits of epoch millis followed by random bits
+     * Uses ThreadLocalRandom rather than the shared SecureRandom behind UUID.randomUUID(),
+     * so generation never contends; correlation IDs are identifiers, not secrets.
+     */
     public static String generateCorrelationId() {
-        return UUID.randomUUID().toString();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextInt() & 0x0fffL);
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+
+        char[] chars = new char[36];
+        writeHex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        writeHex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        writeHex(chars, 14, msb, 4);
+        chars[18] = '-';
+        writeHex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        writeHex(chars, 24, lsb, 12);
+        return new String(chars);
     }
 
+    /**
+     * Accepts canonical 8-4-4-4-12 hex UUIDs of any version, without parsing or exceptions
+     */
     public static boolean isValid(String correlationId) {
-        if (correlationId == null || correlationId.trim().isEmpty()) {
+        if (correlationId == null || correlationId.length() != 36) {
             return false;
         }
-        try {
-            UUID.fromString(correlationId);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+        for (int i = 0; i < 36; i++) {
+            char c = correlationId.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
         }
+        return true;
     }
 
     public static String getHeaderName() {
         return CORRELATION_ID_HEADER;
     }
-}
\ No newline at end of file
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.nnipa.gateway.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtParserBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.lang.NestedCollection;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * JWT verification keys indexed by kid
+ * Keys come from api-gateway.security.keys (HMAC secrets, RSA or EC public
+ * keys in PEM) and from a local JWKS file; the legacy jwt-secret verifies
+ * tokens without a kid, or whose kid is unknown. Each key gets one immutable,
+ * thread-safe JwtParser, built when the ring is loaded and never per request,
+ * that only accepts the key's configured algorithm, or its JWK alg; JWKs
+ * without an alg accept any algorithm of their key type.
+ * The JWKS file is checked every key-refresh-interval and, when it changed,
+ * a new ring replaces the old one in a single reference swap, so keys can be
+ * rotated without a restart and without pausing verification. A file that
+ * fails to load leaves the current ring in place.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private final ApiGatewayProperties.Security properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Verifier> configuredKeys;
+    private final JwtParser defaultParser;
+    private final AtomicReference<Map<String, Verifier>> ring;
+    private final List<Consumer<Set<String>>> rotationListeners = new CopyOnWriteArrayList<>();
+
+    private volatile FileTime jwksModified;
+    private Disposable refresher;
+
+    public JwtKeyRing(ApiGatewayProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties.getSecurity();
+        this.objectMapper = objectMapper;
+
+        String secret = this.properties.getJwtSecret();
+        this.defaultParser = StringUtils.hasText(secret)
+                ? Jwts.parser().verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))).build()
+                : null;
+
+        Map<String, Verifier> configured = new LinkedHashMap<>();
+        for (ApiGatewayProperties.Security.SigningKey signingKey : this.properties.getKeys()) {
+            try {
+                configured.put(signingKey.getKid(), Verifier.of(toKey(signingKey),
+                        Jwts.SIG.get().forKey(signingKey.getAlgorithm().toUpperCase(Locale.ROOT))));
+            } catch (GeneralSecurityException | RuntimeException e) {
+                throw new IllegalStateException("Invalid JWT key " + signingKey.getKid(), e);
+            }
+        }
+        this.configuredKeys = Map.copyOf(configured);
+
+        Map<String, Verifier> initial = new LinkedHashMap<>(configuredKeys);
+        if (StringUtils.hasText(this.properties.getJwksFile())) {
+            try {
+                jwksModified = Files.getLastModifiedTime(Path.of(this.properties.getJwksFile()));
+                initial.putAll(loadJwks(Path.of(this.properties.getJwksFile())));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not load JWKS file {}: {}", this.properties.getJwksFile(), e.toString());
+            }
+        }
+        this.ring = new AtomicReference<>(Map.copyOf(initial));
+        log.info("JWT key ring loaded with {} keys{}", initial.size(),
+                defaultParser != null ? " and a default key" : "");
+
+        Gauge.builder("gateway.auth.keys", ring, current -> current.get().size())
+                .description("JWT verification keys indexed by kid")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!StringUtils.hasText(properties.getJwksFile())) {
+            return;
+        }
+        // File checks are blocking I/O, so they stay off the event loops
+        refresher = Flux.interval(properties.getKeyRefreshInterval(), Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .subscribe(tick -> refreshIfModified());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * Parser for the key the token names in its header
+     */
+    public JwtParser parserFor(String token) {
+        String kid = kid(token);
+        JwtParser parser = kid != null ? lookup(kid) : null;
+        if (parser == null) {
+            parser = defaultParser;
+        }
+        if (parser == null) {
+            throw new UnsupportedJwtException("No key for kid " + kid);
+        }
+        return parser;
+    }
+
+    /**
+     * Called after each rotation with the kids that were removed or now hold a different key
+     */
+    public void addRotationListener(Consumer<Set<String>> listener) {
+        rotationListeners.add(listener);
+    }
+
+    /**
+     * Reload the JWKS file now and swap the ring if it loads
+     */
+    public void reload() {
+        Path file = Path.of(properties.getJwksFile());
+        Map<String, Verifier> next = new LinkedHashMap<>(configuredKeys);
+        try {
+            jwksModified = Files.getLastModifiedTime(file);
+            next.putAll(loadJwks(file));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Keeping current JWT keys, could not load JWKS file {}: {}", file, e.toString());
+            return;
+        }
+
+        Map<String, Verifier> previous = ring.getAndSet(Map.copyOf(next));
+        Set<String> retired = new HashSet<>();
+        previous.forEach((kid, verifier) -> {
+            Verifier replacement = next.get(kid);
+            if (replacement == null || !replacement.sameAs(verifier)) {
+                retired.add(kid);
+            }
+        });
+        log.info("Rotated JWT keys: {} keys, retired {}", next.size(), retired);
+        rotationListeners.forEach(listener -> listener.accept(retired));
+    }
+
+    private void refreshIfModified() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(Path.of(properties.getJwksFile()));
+            if (!modified.equals(jwksModified)) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.debug("JWKS file {} not readable: {}", properties.getJwksFile(), e.toString());
+        }
+    }
+
+    private JwtParser lookup(String kid) {
+        Verifier verifier = ring.get().get(kid);
+        return verifier != null ? verifier.parser() : null;
+    }
+
+    /**
+     * The kid from the token's header, read without verifying anything
+     */
+    private String kid(String token) {
+        int end = token.indexOf('.');
+        if (end <= 0) {
+            throw new MalformedJwtException("Token has no header");
+        }
+        try {
+            JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(0, end)));
+            JsonNode kid = header.get("kid");
+            return kid != null && kid.isTextual() ? kid.asText() : null;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Token header is not valid JSON", e);
+        }
+    }
+
+    private Map<String, Verifier> loadJwks(Path file) throws IOException {
+        JwkSet jwkSet = Jwks.setParser().build().parse(Files.readString(file));
+        Map<String, Verifier> keys = new LinkedHashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk.getId() == null) {
+                log.warn("Ignoring JWK without kid in {}", file);
+                continue;
+            }
+            SecureDigestAlgorithm<?, ?> algorithm = null;
+            if (jwk.getAlgorithm() != null) {
+                algorithm = Jwts.SIG.get().get(jwk.getAlgorithm());
+                if (algorithm == null) {
+                    log.warn("Ignoring JWK {} in {}: {} is not a signature algorithm", jwk.getId(), file,
+                            jwk.getAlgorithm());
+                    continue;
+                }
+            }
+            // Never keep private material around for verification
+            Key key = jwk instanceof PrivateJwk<?, ?, ?> privateJwk ? privateJwk.toPublicJwk().toKey() : jwk.toKey();
+            keys.put(jwk.getId(), Verifier.of(key, algorithm));
+        }
+        return keys;
+    }
+
+    private static Key toKey(ApiGatewayProperties.Security.SigningKey signingKey) throws GeneralSecurityException {
+        String algorithm = signingKey.getAlgorithm().toUpperCase(Locale.ROOT);
+        if (algorithm.startsWith("HS")) {
+            return Keys.hmacShaKeyFor(signingKey.getSecret().getBytes(StandardCharsets.UTF_8));
+        }
+        String base64 = signingKey.getPublicKey()
+                .replaceAll("-----(BEGIN|END) PUBLIC KEY-----", "")
+                .replaceAll("\\s", "");
+        KeyFactory factory = KeyFactory.getInstance(algorithm.startsWith("ES") ? "EC" : "RSA");
+        return factory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+    }
+
+    /**
+     * A key and the parser that verifies with it
+     *
+     * @param algorithm the only algorithm the parser accepts, or null for any of the key's type
+     */
+    private record Verifier(JwtParser parser, byte[] encoded, SecureDigestAlgorithm<?, ?> algorithm) {
+
+        static Verifier of(Key key, SecureDigestAlgorithm<?, ?> algorithm) {
+            JwtParserBuilder builder = switch (key) {
+                case SecretKey secretKey -> Jwts.parser().verifyWith(secretKey);
+                case PublicKey publicKey -> Jwts.parser().verifyWith(publicKey);
+                default -> throw new IllegalArgumentException("Unsupported key type " + key.getAlgorithm());
+            };
+            if (algorithm != null) {
+                // Otherwise an RS256 key would also verify RS512 or PS256 tokens
+                NestedCollection<SecureDigestAlgorithm<?, ?>, JwtParserBuilder> accepted = builder.sig();
+                for (SecureDigestAlgorithm<?, ?> other : Jwts.SIG.get().values()) {
+                    if (!other.equals(algorithm)) {
+                        accepted.remove(other);
+                    }
+                }
+                accepted.and();
+            }
+            return new Verifier(builder.build(), key.getEncoded(), algorithm);
+        }
+
+        boolean sameAs(Verifier other) {
+            return Arrays.equals(encoded, other.encoded) && Objects.equals(algorithm, other.algorithm);
+        }
+    }
+}
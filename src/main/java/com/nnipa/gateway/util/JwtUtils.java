@@ -1,41 +1,77 @@
 package com.nnipa.gateway.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nnipa.gateway.model.VerifiedPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class JwtUtils {
 
-    private final String jwtSecret;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
     private final String jwtIssuer;
+    private final JwtKeyRing keyRing;
+    private final Cache<TokenDigest, VerifiedPrincipal> claimsCache;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
 
-    public JwtUtils(@Value("${JWT_SECRET:dGhpcyBpcyBhIDUxMi1iaXQgc2VjcmV0IGtleSBmb3IgSFM1MTIgand0IHNpZ25pbmcgYWxnb3JpdGhtIGVuY29kZWQgaW4gYmFzZTY0IGZvcm1hdCB0aGF0IHlvdSBjYW4gdXNlIGZvciBzZWN1cmUgdG9rZW4=}") String jwtSecret,
-                    @Value("${JWT_ISSUER:https://nnipa.cloud}") String jwtIssuer) {
-        this.jwtSecret = jwtSecret;
+    public JwtUtils(JwtKeyRing keyRing,
+                    @Value("${JWT_ISSUER:https://nnipa.cloud}") String jwtIssuer,
+                    @Value("${api-gateway.security.claims-cache-size:10000}") long claimsCacheSize,
+                    @Value("${api-gateway.security.claims-cache-max-ttl:15m}") Duration claimsCacheMaxTtl,
+                    MeterRegistry meterRegistry) {
         this.jwtIssuer = jwtIssuer;
-    }
+        this.keyRing = keyRing;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new TokenExpiry(claimsCacheMaxTtl.toNanos()))
+                .build();
+
+        this.cacheHits = Counter.builder("gateway.auth.claims.cache")
+                .description("Verified JWT claims cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+
+        this.cacheMisses = Counter.builder("gateway.auth.claims.cache")
+                .description("Verified JWT claims cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        // A principal verified with a retired key must not outlive the key
+        keyRing.addRotationListener(retired -> {
+            if (!retired.isEmpty()) {
+                claimsCache.invalidateAll();
+            }
+        });
     }
 
     public Claims validateAndGetClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return keyRing.parserFor(token).parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.error("JWT token is expired: {}", e.getMessage());
             throw new RuntimeException("Token expired");
@@ -54,9 +90,29 @@ public class JwtUtils {
         }
     }
 
+    /**
+     * Verify the token once and return the identity it carries.
+     * Tokens seen before are served from the claims cache until they expire,
+     * skipping signature verification entirely.
+     */
+    public VerifiedPrincipal verify(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+
+        VerifiedPrincipal cached = claimsCache.getIfPresent(digest);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        cacheMisses.increment();
+        VerifiedPrincipal principal = toPrincipal(validateAndGetClaims(token));
+        claimsCache.put(digest, principal);
+        return principal;
+    }
+
     public boolean isValidToken(String token) {
         try {
-            validateAndGetClaims(token);
+            verify(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -64,19 +120,69 @@ public class JwtUtils {
     }
 
     public UUID extractUserId(String token) {
-        Claims claims = validateAndGetClaims(token);
-        String userId = claims.get("userId", String.class);
-        return userId != null ? UUID.fromString(userId) : null;
+        return verify(token).getUserId();
     }
 
     public UUID extractTenantId(String token) {
-        Claims claims = validateAndGetClaims(token);
-        String tenantId = claims.get("tenantId", String.class);
-        return tenantId != null ? UUID.fromString(tenantId) : null;
+        return verify(token).getTenantId();
     }
 
     public String extractCorrelationId(String token) {
-        Claims claims = validateAndGetClaims(token);
-        return claims.get("correlationId", String.class);
+        return verify(token).getCorrelationId();
+    }
+
+    private VerifiedPrincipal toPrincipal(Claims claims) {
+        String userId = claims.get("userId", String.class);
+        String tenantId = claims.get("tenantId", String.class);
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+
+        return VerifiedPrincipal.builder()
+                .userId(userId != null ? UUID.fromString(userId) : null)
+                .tenantId(tenantId != null ? UUID.fromString(tenantId) : null)
+                .correlationId(claims.get("correlationId", String.class))
+                .tokenId(claims.getId())
+                .issuedAt(issuedAt != null ? issuedAt.toInstant() : null)
+                .expiresAt(expiration != null ? expiration.toInstant() : null)
+                .build();
+    }
+
+    /**
+     * SHA-256 of the raw token, so the cache never retains bearer tokens themselves
+     */
+    private record TokenDigest(long h0, long h1, long h2, long h3) {
+
+        static TokenDigest of(String token) {
+            MessageDigest sha256 = SHA_256.get();
+            ByteBuffer hash = ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    /**
+     * Evicts each cached principal at its token's own expiry, capped at the configured maximum TTL
+     */
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<TokenDigest, VerifiedPrincipal> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedPrincipal principal, long currentTime) {
+            if (principal.getExpiresAt() == null) {
+                return maxTtlNanos;
+            }
+            long remainingMillis = principal.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+            return Math.max(0, Math.min(TimeUnit.MILLISECONDS.toNanos(remainingMillis), maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedPrincipal principal,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedPrincipal principal,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
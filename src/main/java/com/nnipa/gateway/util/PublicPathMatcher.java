@@ -0,0 +1,172 @@
+package com.nnipa.gateway.util;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches request paths against the configured public paths
+ * Patterns are compiled once into a segment trie, so lookup cost depends on
+ * the depth of the request path rather than on the number of patterns.
+ * Supported wildcards are whole segments only: "*" matches one segment and
+ * "**" matches any number of segments, including none, as in Ant patterns.
+ */
+@Slf4j
+@Component
+public class PublicPathMatcher {
+
+    private final ApiGatewayProperties properties;
+
+    private volatile Compiled compiled = new Compiled(null, new Node());
+
+    public PublicPathMatcher(ApiGatewayProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Check if the path is public (no authentication required)
+     */
+    public boolean isPublicPath(String path) {
+        if (path == null) {
+            return false;
+        }
+        return current().root.matches(path, 0);
+    }
+
+    /**
+     * Rebuild the trie when the bound list has been replaced, e.g. after a
+     * configuration refresh rebinds the properties
+     */
+    private Compiled current() {
+        List<String> publicPaths = properties.getSecurity().getPublicPaths();
+        Compiled snapshot = compiled;
+        if (snapshot.source == publicPaths) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            if (compiled.source != publicPaths) {
+                compiled = compile(publicPaths);
+            }
+            return compiled;
+        }
+    }
+
+    private static Compiled compile(List<String> publicPaths) {
+        Node root = new Node();
+        List<String> patterns = publicPaths != null ? publicPaths : Collections.emptyList();
+
+        for (String pattern : patterns) {
+            List<String> segments = new ArrayList<>();
+            for (String segment : pattern.split("/")) {
+                if (!segment.isEmpty()) {
+                    segments.add(segment);
+                }
+            }
+
+            Node node = root;
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                if (segment.equals("**") && i == segments.size() - 1) {
+                    // The common case, a whole subtree, needs no backtracking
+                    node.matchesRest = true;
+                    node = null;
+                    break;
+                }
+                node = switch (segment) {
+                    case "**" -> node.anySegments();
+                    case "*" -> node.anySegment();
+                    default -> node.children.computeIfAbsent(segment, s -> new Node());
+                };
+            }
+            if (node != null) {
+                node.terminal = true;
+            }
+        }
+
+        log.debug("Compiled {} public path patterns", patterns.size());
+        return new Compiled(publicPaths, root);
+    }
+
+    private record Compiled(List<String> source, Node root) {
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node wildcard;
+        private Node anyDepth;
+        private boolean terminal;
+        private boolean matchesRest;
+
+        private Node anySegment() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+
+        private Node anySegments() {
+            if (anyDepth == null) {
+                anyDepth = new Node();
+            }
+            return anyDepth;
+        }
+
+        /**
+         * Match the remainder of the path starting at index, skipping empty segments
+         */
+        private boolean matches(String path, int index) {
+            if (matchesRest) {
+                return true;
+            }
+
+            int length = path.length();
+            if (anyDepth != null && anyDepth.matchesAfterAnySegments(path, index)) {
+                return true;
+            }
+            while (index < length && path.charAt(index) == '/') {
+                index++;
+            }
+            if (index == length) {
+                return terminal;
+            }
+
+            int end = path.indexOf('/', index);
+            if (end < 0) {
+                end = length;
+            }
+
+            Node child = children.isEmpty() ? null : children.get(path.substring(index, end));
+            if (child != null && child.matches(path, end)) {
+                return true;
+            }
+            return wildcard != null && wildcard.matches(path, end);
+        }
+
+        /**
+         * Match the remainder of the path after skipping zero or more of its segments
+         */
+        private boolean matchesAfterAnySegments(String path, int index) {
+            int length = path.length();
+            while (true) {
+                if (matches(path, index)) {
+                    return true;
+                }
+                while (index < length && path.charAt(index) == '/') {
+                    index++;
+                }
+                if (index == length) {
+                    return false;
+                }
+                int end = path.indexOf('/', index);
+                index = end < 0 ? length : end;
+            }
+        }
+    }
+}
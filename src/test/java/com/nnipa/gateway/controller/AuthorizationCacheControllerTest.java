@@ -0,0 +1,74 @@
+package com.nnipa.gateway.controller;
+
+import com.nnipa.gateway.controller.AuthorizationCacheController.InvalidationRequest;
+import com.nnipa.gateway.service.EdgeAuthorizationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthorizationCacheControllerTest {
+
+    private final EdgeAuthorizationService authorizationService = mock(EdgeAuthorizationService.class);
+    private final AuthorizationCacheController controller = new AuthorizationCacheController(authorizationService);
+
+    @BeforeEach
+    void setUp() {
+        when(authorizationService.getInvalidationToken()).thenReturn("secret");
+    }
+
+    @Test
+    void invalidatesOnlyTheNamedUserOrTenant() {
+        when(authorizationService.invalidate("user-1", null)).thenReturn(3L);
+        when(authorizationService.invalidate(null, "tenant-1")).thenReturn(5L);
+        when(authorizationService.invalidate("user-1", "tenant-1")).thenReturn(1L);
+
+        StepVerifier.create(controller.invalidate("secret", new InvalidationRequest("user-1", null)))
+                .expectNext(Map.of("invalidated", 3L))
+                .verifyComplete();
+        StepVerifier.create(controller.invalidate("secret", new InvalidationRequest(null, "tenant-1")))
+                .expectNext(Map.of("invalidated", 5L))
+                .verifyComplete();
+        StepVerifier.create(controller.invalidate("secret", new InvalidationRequest("user-1", "tenant-1")))
+                .expectNext(Map.of("invalidated", 1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void blankFieldsDoNotNarrowTheInvalidation() {
+        when(authorizationService.invalidate("user-1", null)).thenReturn(3L);
+
+        StepVerifier.create(controller.invalidate("secret", new InvalidationRequest("user-1", " ")))
+                .expectNext(Map.of("invalidated", 3L))
+                .verifyComplete();
+        verify(authorizationService, never()).invalidate("user-1", " ");
+    }
+
+    @Test
+    void anEmptyBodyDropsEveryDecision() {
+        when(authorizationService.invalidate(null, null)).thenReturn(42L);
+
+        StepVerifier.create(controller.invalidate("secret", null))
+                .expectNext(Map.of("invalidated", 42L))
+                .verifyComplete();
+        StepVerifier.create(controller.invalidate("secret", new InvalidationRequest("", "")))
+                .expectNext(Map.of("invalidated", 42L))
+                .verifyComplete();
+    }
+
+    @Test
+    void invalidatesNothingWithoutTheToken() {
+        StepVerifier.create(controller.invalidate("guess", null))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        verify(authorizationService, never()).invalidate(any(), any());
+    }
+}
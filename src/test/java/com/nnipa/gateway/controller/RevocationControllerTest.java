@@ -0,0 +1,76 @@
+package com.nnipa.gateway.controller;
+
+import com.nnipa.gateway.controller.RevocationController.RevocationRequest;
+import com.nnipa.gateway.service.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class RevocationControllerTest {
+
+    private static final RevocationRequest LOGOUT = new RevocationRequest("token-1", null, 4_102_444_800L);
+
+    private final TokenRevocationService revocationService = mock(TokenRevocationService.class);
+    private final RevocationController controller = new RevocationController(revocationService);
+
+    @BeforeEach
+    void setUp() {
+        when(revocationService.getPushToken()).thenReturn("secret");
+    }
+
+    @Test
+    void revokesTokensAndUsersWithExpiriesInMillis() {
+        UUID locked = UUID.randomUUID();
+        UUID reset = UUID.randomUUID();
+        List<RevocationRequest> batch = List.of(LOGOUT,
+                new RevocationRequest(null, locked.toString(), null),
+                new RevocationRequest(null, reset.toString(), 4_102_444_900L));
+
+        StepVerifier.create(controller.revoke("secret", batch))
+                .expectNext(Map.of("revoked", 3))
+                .verifyComplete();
+        verify(revocationService).revokeToken("token-1", 4_102_444_800_000L);
+        verify(revocationService).revokeUser(eq(locked), anyLong(), eq(null));
+        verify(revocationService).revokeUser(eq(reset), anyLong(), eq(4_102_444_900_000L));
+    }
+
+    @Test
+    void aBadEntryRejectsTheWholeBatch() {
+        List<List<RevocationRequest>> batches = List.of(
+                List.of(LOGOUT, new RevocationRequest("token-2", null, null)),
+                List.of(LOGOUT, new RevocationRequest(null, "not-a-uuid", null)),
+                List.of(LOGOUT, new RevocationRequest(" ", " ", 4_102_444_800L)),
+                Arrays.asList(LOGOUT, null));
+
+        for (List<RevocationRequest> batch : batches) {
+            StepVerifier.create(controller.revoke("secret", batch))
+                    .expectError(IllegalArgumentException.class)
+                    .verify();
+        }
+        verify(revocationService, times(batches.size())).getPushToken();
+        verifyNoMoreInteractions(revocationService);
+    }
+
+    @Test
+    void revokesNothingWithoutTheToken() {
+        StepVerifier.create(controller.revoke("guess", List.of(LOGOUT)))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        verify(revocationService).getPushToken();
+        verifyNoMoreInteractions(revocationService);
+    }
+}
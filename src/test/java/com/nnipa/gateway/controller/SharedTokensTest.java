@@ -0,0 +1,40 @@
+package com.nnipa.gateway.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+class SharedTokensTest {
+
+    @Test
+    void rejectsEveryCallWhileNoTokenIsConfigured() {
+        for (String expected : new String[]{null, "", " "}) {
+            StepVerifier.create(SharedTokens.verify(expected, null, "test push"))
+                    .expectErrorMatches(SharedTokensTest::isForbidden)
+                    .verify();
+            StepVerifier.create(SharedTokens.verify(expected, expected, "test push"))
+                    .expectErrorMatches(SharedTokensTest::isForbidden)
+                    .verify();
+        }
+    }
+
+    @Test
+    void rejectsAMissingOrWrongToken() {
+        for (String presented : new String[]{null, "", "guess", "secret ", "secre", "SECRET"}) {
+            StepVerifier.create(SharedTokens.verify("secret", presented, "test push"))
+                    .expectErrorMatches(SharedTokensTest::isForbidden)
+                    .verify();
+        }
+    }
+
+    @Test
+    void acceptsTheConfiguredToken() {
+        StepVerifier.create(SharedTokens.verify("secret", "secret", "test push"))
+                .verifyComplete();
+    }
+
+    private static boolean isForbidden(Throwable error) {
+        return error instanceof ResponseStatusException status && status.getStatusCode() == HttpStatus.FORBIDDEN;
+    }
+}
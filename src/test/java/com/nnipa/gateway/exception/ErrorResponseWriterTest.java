@@ -0,0 +1,55 @@
+package com.nnipa.gateway.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesTemplateFieldsAndDynamicFields() throws Exception {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/tenants"));
+
+        ErrorResponseWriter.write(exchange,
+                ErrorResponseWriter.Template.of(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded")).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        JsonNode body = body(exchange);
+        assertThat(body.get("error").asText()).isEqualTo("Rate limit exceeded");
+        assertThat(body.get("status").asInt()).isEqualTo(429);
+        assertThat(body.get("path").asText()).isEqualTo("/api/v1/tenants");
+        assertThat(body.get("timestamp").asText()).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z");
+    }
+
+    @Test
+    void escapesCharactersAfterNonAsciiText() throws Exception {
+        String message = "café \"quoted\" back\\slash € 😀 line\nbreak";
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/users"));
+
+        ErrorResponseWriter.write(exchange,
+                ErrorResponseWriter.Template.of(HttpStatus.BAD_REQUEST, "Bad Request"), message).block();
+
+        assertThat(body(exchange).get("message").asText()).isEqualTo(message);
+    }
+
+    @Test
+    void replacesUnpairedSurrogates() throws Exception {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/users"));
+
+        ErrorResponseWriter.write(exchange,
+                ErrorResponseWriter.Template.of(HttpStatus.BAD_REQUEST, "Bad Request"), "a\uD83D\"b").block();
+
+        assertThat(body(exchange).get("message").asText()).isEqualTo("a?\"b");
+    }
+
+    private JsonNode body(MockServerWebExchange exchange) throws Exception {
+        return objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+    }
+}
@@ -0,0 +1,149 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.service.CompressionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionGatewayFilterFactoryTest {
+
+    private static final byte[] BODY = "{\"id\":\"tenant\",\"plan\":\"enterprise\"}".repeat(200)
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final CompressionService compressionService =
+            new CompressionService(new ApiGatewayProperties(), new SimpleMeterRegistry());
+    private final CompressionGatewayFilterFactory factory = new CompressionGatewayFilterFactory(compressionService);
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "none", value = {
+            "gzip                          | gzip",
+            "GZIP                          | gzip",
+            "x-gzip                        | gzip",
+            "deflate                       | deflate",
+            "gzip, deflate                 | gzip",
+            "gzip;q=0.5, deflate           | deflate",
+            "deflate;q=0.8, gzip;q=0.9     | gzip",
+            "*                             | gzip",
+            "gzip;q=0, *                   | deflate",
+            "gzip;q=0, deflate;q=0, *      | none",
+            "*;q=0.5, deflate              | deflate",
+            "gzip;q=0                      | none",
+            "gzip;q=abc                    | none",
+            "br, identity                  | none",
+    })
+    void negotiatesTheBestAcceptedEncoding(String acceptEncoding, String expected) {
+        MockServerWebExchange exchange = handle(gateway(new CompressionGatewayFilterFactory.Config(), json()),
+                acceptEncoding);
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo(expected);
+        assertThat(exchange.getResponse().getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void prefersZstdOnlyWhenItIsAvailable() {
+        MockServerWebExchange exchange = handle(gateway(new CompressionGatewayFilterFactory.Config(), json()),
+                "zstd, gzip");
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                .isEqualTo(compressionService.isZstdAvailable() ? "zstd" : "gzip");
+    }
+
+    @Test
+    void streamsOutputThatDecodesBackToTheBody() {
+        HttpHeaders upstream = json();
+        upstream.setContentLength(BODY.length);
+        upstream.setETag("\"v7\"");
+
+        MockServerWebExchange gzip = handle(gateway(new CompressionGatewayFilterFactory.Config(), upstream), "gzip");
+        HttpHeaders headers = gzip.getResponse().getHeaders();
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_LENGTH)).isFalse();
+        assertThat(headers.getETag()).isEqualTo("W/\"v7\"");
+        byte[] compressed = TestGateway.body(gzip);
+        assertThat(compressed.length).isLessThan(BODY.length);
+        assertThat(TestGateway.gunzip(compressed)).isEqualTo(BODY);
+
+        MockServerWebExchange deflate = handle(gateway(new CompressionGatewayFilterFactory.Config(), upstream), "deflate");
+        assertThat(inflate(TestGateway.body(deflate))).isEqualTo(BODY);
+    }
+
+    @Test
+    void leavesBodiesBelowMinSizeUncompressed() {
+        CompressionGatewayFilterFactory.Config config = new CompressionGatewayFilterFactory.Config();
+        config.setMinSize(DataSize.ofBytes(BODY.length + 1));
+        HttpHeaders upstream = json();
+        upstream.setContentLength(BODY.length);
+
+        MockServerWebExchange small = handle(gateway(config, upstream), "gzip");
+        assertThat(small.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(small.getResponse().getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(TestGateway.body(small)).isEqualTo(BODY);
+
+        // Without a Content-Length the size is unknown up front, so the body is compressed
+        MockServerWebExchange unknownLength = handle(gateway(config, json()), "gzip");
+        assertThat(unknownLength.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    }
+
+    @Test
+    void leavesExcludedAndEncodedResponsesUntouched() {
+        HttpHeaders image = new HttpHeaders();
+        image.setContentType(MediaType.IMAGE_PNG);
+        MockServerWebExchange png = handle(gateway(new CompressionGatewayFilterFactory.Config(), image), "gzip");
+        assertThat(png.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(png.getResponse().getHeaders().containsKey(HttpHeaders.VARY)).isFalse();
+        assertThat(TestGateway.body(png)).isEqualTo(BODY);
+
+        HttpHeaders encoded = json();
+        encoded.set(HttpHeaders.CONTENT_ENCODING, "br");
+        MockServerWebExchange brotli = handle(gateway(new CompressionGatewayFilterFactory.Config(), encoded), "gzip");
+        assertThat(brotli.getResponse().getHeaders().get(HttpHeaders.CONTENT_ENCODING)).containsExactly("br");
+        assertThat(TestGateway.body(brotli)).isEqualTo(BODY);
+
+        HttpHeaders noTransform = json();
+        noTransform.setCacheControl("no-transform");
+        MockServerWebExchange kept = handle(gateway(new CompressionGatewayFilterFactory.Config(), noTransform), "gzip");
+        assertThat(kept.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+    }
+
+    private TestGateway gateway(CompressionGatewayFilterFactory.Config config, HttpHeaders upstream) {
+        return new TestGateway(factory.apply(config)).respond(upstream, BODY);
+    }
+
+    private static MockServerWebExchange handle(TestGateway gateway, String acceptEncoding) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/tenants/42")
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+        gateway.handle(exchange).block();
+        return exchange;
+    }
+
+    private static HttpHeaders json() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+
+    private static byte[] inflate(byte[] compressed) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.service.HedgingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingGatewayFilterFactoryTest {
+
+    private final HedgingGatewayFilterFactory factory = new HedgingGatewayFilterFactory(
+            new HedgingService(new ApiGatewayProperties(), new SimpleMeterRegistry()));
+
+    @Test
+    void firstResponseHeadersWinAndLeaveTheBodyToBeStreamed() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/authz/check"));
+        exchange.getResponse().getHeaders().set("X-Correlation-Id", "abc");
+        AtomicInteger attempts = new AtomicInteger();
+        GatewayFilterChain chain = attempt -> {
+            boolean primary = attempts.getAndIncrement() == 0;
+            attempt.getResponse().setStatusCode(HttpStatus.OK);
+            attempt.getResponse().getHeaders().set("X-Attempt", primary ? "primary" : "hedge");
+            attempt.getResponse().getHeaders().set("X-Correlation-Id", "upstream");
+            attempt.getAttributes().put("upstream", primary ? "primary" : "hedge");
+            return primary ? Mono.delay(Duration.ofSeconds(5)).then() : Mono.empty();
+        };
+
+        filter(Duration.ofMillis(20)).filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(attempts).hasValue(2);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Attempt")).isEqualTo("hedge");
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Correlation-Id")).isEqualTo("abc");
+        assertThat(exchange.<String>getAttribute("upstream")).isEqualTo("hedge");
+        // Nothing written yet: NettyWriteResponseFilter streams the winner's body afterwards
+        assertThat(exchange.getResponse().isCommitted()).isFalse();
+    }
+
+    @Test
+    void bodiesWrittenByFiltersAreReplayed() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/authz/check"));
+        GatewayFilterChain chain = attempt -> {
+            attempt.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return attempt.getResponse().writeWith(Mono.just(attempt.getResponse().bufferFactory()
+                    .wrap("busy".getBytes(StandardCharsets.UTF_8))));
+        };
+
+        filter(Duration.ofSeconds(1)).filter(exchange, chain).block(Duration.ofSeconds(2));
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("busy");
+    }
+
+    private GatewayFilter filter(Duration delay) {
+        HedgingGatewayFilterFactory.Config config = new HedgingGatewayFilterFactory.Config();
+        config.setDelay(delay);
+        return factory.apply(config);
+    }
+}
@@ -0,0 +1,112 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.model.RateLimitDecision;
+import com.nnipa.gateway.model.RateLimitKey;
+import com.nnipa.gateway.service.DistributedRateLimitService;
+import com.nnipa.gateway.service.RateLimitService;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RateLimiterGatewayFilterFactoryTest {
+
+    private static final String TENANT = UUID.randomUUID().toString();
+
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+    private final DistributedRateLimitService distributedRateLimitService = mock(DistributedRateLimitService.class);
+    private final RateLimiterGatewayFilterFactory factory =
+            new RateLimiterGatewayFilterFactory(rateLimitService, distributedRateLimitService);
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    @Test
+    void allowedRequestsCarryTheHeadersOfTheirDecision() {
+        decide(new RateLimitDecision(true, 17, 0, TimeUnit.MILLISECONDS.toNanos(4_200)));
+
+        MockServerWebExchange exchange = filter(new RateLimiterGatewayFilterFactory.Config());
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(forwarded).hasValue(1);
+        assertThat(headers.getFirst("RateLimit-Limit")).isEqualTo("200");
+        assertThat(headers.getFirst("RateLimit-Remaining")).isEqualTo("17");
+        assertThat(headers.getFirst("RateLimit-Reset")).isEqualTo("5");
+        assertThat(headers.getFirst("X-RateLimit-Limit")).isEqualTo("100");
+        assertThat(headers.getFirst("X-RateLimit-Remaining")).isEqualTo("17");
+        long resetAt = Long.parseLong(headers.getFirst("X-RateLimit-Reset"));
+        assertThat(resetAt - System.currentTimeMillis()).isBetween(3_000L, 4_200L);
+        assertThat(headers.containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+        verify(rateLimitService, times(1)).tryConsume(eq(RateLimitKey.tenant("default", TENANT)), anyInt(), anyInt());
+    }
+
+    @Test
+    void rejectedRequestsGetARetryAfterRoundedUpToWholeSeconds() {
+        decide(new RateLimitDecision(false, 0, TimeUnit.MILLISECONDS.toNanos(1_200), TimeUnit.SECONDS.toNanos(2)));
+
+        MockServerWebExchange exchange = filter(new RateLimiterGatewayFilterFactory.Config());
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(forwarded).hasValue(0);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(headers.getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(headers.getFirst("RateLimit-Remaining")).isEqualTo("0");
+        assertThat(headers.getFirst("RateLimit-Reset")).isEqualTo("2");
+    }
+
+    @Test
+    void retryAfterIsNeverZero() {
+        decide(new RateLimitDecision(false, 0, 0, 1));
+
+        MockServerWebExchange exchange = filter(new RateLimiterGatewayFilterFactory.Config());
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(exchange.getResponse().getHeaders().getFirst("RateLimit-Reset")).isEqualTo("1");
+    }
+
+    @Test
+    void distributedModeProbesTheSharedBucketOnly() {
+        when(distributedRateLimitService.tryConsume(any(), anyInt(), anyInt()))
+                .thenReturn(new RateLimitDecision(true, 9, 0, 0));
+        RateLimiterGatewayFilterFactory.Config config = new RateLimiterGatewayFilterFactory.Config();
+        config.setMode(RateLimiterGatewayFilterFactory.Mode.DISTRIBUTED);
+        config.setBurstCapacity(10);
+
+        MockServerWebExchange exchange = filter(config);
+
+        assertThat(exchange.getResponse().getHeaders().getFirst("RateLimit-Limit")).isEqualTo("10");
+        assertThat(exchange.getResponse().getHeaders().getFirst("RateLimit-Remaining")).isEqualTo("9");
+        assertThat(exchange.getResponse().getHeaders().getFirst("RateLimit-Reset")).isEqualTo("0");
+        verifyNoInteractions(rateLimitService);
+    }
+
+    private void decide(RateLimitDecision decision) {
+        when(rateLimitService.tryConsume(any(), anyInt(), anyInt())).thenReturn(decision);
+    }
+
+    private MockServerWebExchange filter(RateLimiterGatewayFilterFactory.Config config) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/tenants")
+                .header("X-Tenant-Id", TENANT));
+        factory.apply(config).filter(exchange, chain).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,61 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.service.CompressionService;
+import com.nnipa.gateway.service.RequestCoalescingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingGatewayFilterFactoryTest {
+
+    private static final byte[] BODY = "{\"permissions\":[]}".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void followersGetTheSharedBodyCompressedForThemselves() {
+        RequestCoalescingGatewayFilterFactory.Config config = new RequestCoalescingGatewayFilterFactory.Config();
+        // Merge clients that differ only in Accept-Encoding, so the follower's encoding differs from the leader's
+        config.setKeyHeaders(List.of());
+        TestGateway gateway = new TestGateway(
+                new CompressionGatewayFilterFactory(new CompressionService(properties, meterRegistry))
+                        .apply(new CompressionGatewayFilterFactory.Config()),
+                new RequestCoalescingGatewayFilterFactory(new RequestCoalescingService(properties, meterRegistry))
+                        .apply(config));
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.setContentType(MediaType.APPLICATION_JSON);
+        gateway.respond(upstream, BODY).latency(Duration.ofMillis(200));
+
+        MockServerWebExchange leader = get("gzip");
+        MockServerWebExchange follower = get(null);
+        Mono.when(gateway.handle(leader),
+                        Mono.delay(Duration.ofMillis(50)).then(gateway.handle(follower)))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(gateway.upstreamCalls()).isEqualTo(1);
+        assertThat(leader.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(TestGateway.gunzip(TestGateway.body(leader))).isEqualTo(BODY);
+        assertThat(follower.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(TestGateway.body(follower)).isEqualTo(BODY);
+    }
+
+    private static MockServerWebExchange get(String acceptEncoding) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/permissions");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
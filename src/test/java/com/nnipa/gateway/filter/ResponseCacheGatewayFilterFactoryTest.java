@@ -0,0 +1,85 @@
+package com.nnipa.gateway.filter;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.service.CompressionService;
+import com.nnipa.gateway.service.ResponseCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final byte[] BODY = "{\"tenants\":[]}".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TestGateway gateway = new TestGateway(
+            new CompressionGatewayFilterFactory(new CompressionService(properties, meterRegistry))
+                    .apply(new CompressionGatewayFilterFactory.Config()),
+            new ResponseCacheGatewayFilterFactory(new ResponseCacheService(properties, meterRegistry))
+                    .apply(new ResponseCacheGatewayFilterFactory.Config()));
+
+    @Test
+    void storesUncompressedBodiesAndCompressesHitsPerClient() {
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.setContentType(MediaType.APPLICATION_JSON);
+        upstream.setCacheControl("max-age=60");
+        upstream.setETag("\"v1\"");
+        gateway.respond(upstream, BODY);
+
+        MockServerWebExchange miss = get("gzip");
+        gateway.handle(miss).block();
+        assertThat(miss.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(miss.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(TestGateway.gunzip(TestGateway.body(miss))).isEqualTo(BODY);
+
+        MockServerWebExchange plainHit = get(null);
+        gateway.handle(plainHit).block();
+        HttpHeaders plainHeaders = plainHit.getResponse().getHeaders();
+        assertThat(plainHeaders.getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(plainHeaders.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(plainHeaders.getETag()).isEqualTo("\"v1\"");
+        assertThat(plainHeaders.get(HttpHeaders.VARY)).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(TestGateway.body(plainHit)).isEqualTo(BODY);
+
+        MockServerWebExchange gzipHit = get("gzip");
+        gateway.handle(gzipHit).block();
+        assertThat(gzipHit.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(gzipHit.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipHit.getResponse().getHeaders().getETag()).isEqualTo("W/\"v1\"");
+        assertThat(TestGateway.gunzip(TestGateway.body(gzipHit))).isEqualTo(BODY);
+
+        assertThat(gateway.upstreamCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotStorePrivateResponses() {
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.setContentType(MediaType.APPLICATION_JSON);
+        upstream.setCacheControl("private, max-age=60");
+        gateway.respond(upstream, BODY);
+
+        gateway.handle(get(null)).block();
+        MockServerWebExchange second = get(null);
+        gateway.handle(second).block();
+
+        assertThat(second.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(TestGateway.body(second)).isEqualTo(BODY);
+        assertThat(gateway.upstreamCalls()).isEqualTo(2);
+    }
+
+    private static MockServerWebExchange get(String acceptEncoding) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/tenants");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
@@ -0,0 +1,85 @@
+package com.nnipa.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseDecoratorFilterTest {
+
+    private final ResponseDecoratorFilter filter = new ResponseDecoratorFilter();
+
+    @Test
+    void appliesDecoratorsRegisteredAfterItRanInRegistrationOrder() {
+        ResponseDecoratorFilter.Registering registering = (exchange, chain) -> chain.filter(exchange);
+        MockServerWebExchange exchange = exchange(new OrderedGatewayFilter(registering, 3));
+
+        filter.filter(exchange, written -> {
+            ResponseDecoratorFilter.register(written, response -> new HeaderAppending(response, "first"));
+            ResponseDecoratorFilter.register(written, response -> new HeaderAppending(response, "second"));
+            return written.getResponse().writeWith(Mono.just(
+                    written.getResponse().bufferFactory().wrap("body".getBytes(StandardCharsets.UTF_8))));
+        }).block();
+
+        // The outermost decorator sees the body first
+        assertThat(exchange.getResponse().getHeaders().get("X-Seen")).containsExactly("second", "first");
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("body");
+    }
+
+    @Test
+    void leavesRoutesWithoutRegisteringFiltersUntouched() {
+        GatewayFilter plain = (exchange, chain) -> chain.filter(exchange);
+        MockServerWebExchange exchange = exchange(new OrderedGatewayFilter(plain, 1));
+        AtomicReference<ServerWebExchange> passed = new AtomicReference<>();
+
+        filter.filter(exchange, next -> {
+            passed.set(next);
+            return Mono.empty();
+        }).block();
+
+        assertThat(passed.get()).isSameAs(exchange);
+    }
+
+    private static MockServerWebExchange exchange(GatewayFilter routeFilter) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/tenants"));
+        Route route = Route.async()
+                .id("tenant-service")
+                .uri("http://localhost")
+                .predicate(e -> true)
+                .filters(List.of(routeFilter))
+                .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private static final class HeaderAppending extends ServerHttpResponseDecorator {
+
+        private final String name;
+
+        HeaderAppending(ServerHttpResponse delegate, String name) {
+            super(delegate);
+            this.name = name;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            getHeaders().add("X-Seen", name);
+            return super.writeWith(body);
+        }
+    }
+}
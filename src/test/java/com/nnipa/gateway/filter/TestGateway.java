@@ -0,0 +1,143 @@
+package com.nnipa.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Runs route filters the way FilteringWebHandler does, against one canned upstream response
+ * The upstream body is written by a stand-in for NettyWriteResponseFilter
+ * after the chain completes, in two chunks, through whatever response the
+ * filters before it handed down.
+ */
+final class TestGateway {
+
+    private static final String ROUTED_ATTR = TestGateway.class.getName() + ".routed";
+
+    private final List<GatewayFilter> routeFilters;
+    private final HttpHeaders upstreamHeaders = new HttpHeaders();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private byte[] upstreamBody = new byte[0];
+    private Duration upstreamLatency = Duration.ZERO;
+
+    TestGateway(GatewayFilter... routeFilters) {
+        this.routeFilters = List.of(routeFilters);
+    }
+
+    TestGateway respond(HttpHeaders headers, byte[] body) {
+        upstreamHeaders.clear();
+        upstreamHeaders.putAll(headers);
+        upstreamBody = body;
+        return this;
+    }
+
+    TestGateway latency(Duration latency) {
+        upstreamLatency = latency;
+        return this;
+    }
+
+    int upstreamCalls() {
+        return upstreamCalls.get();
+    }
+
+    Mono<Void> handle(MockServerWebExchange exchange) {
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("test-route")
+                .uri("http://localhost")
+                .predicate(e -> true)
+                .filters(routeFilters)
+                .build());
+
+        List<GatewayFilter> filters = new ArrayList<>();
+        filters.add(new OrderedGatewayFilter(new ResponseDecoratorFilter()::filter, ResponseDecoratorFilter.ORDER));
+        filters.add(new OrderedGatewayFilter(this::writeResponse, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER));
+        for (int i = 0; i < routeFilters.size(); i++) {
+            GatewayFilter filter = routeFilters.get(i);
+            filters.add(filter instanceof OrderedGatewayFilter ? filter : new OrderedGatewayFilter(filter, i + 1));
+        }
+        filters.add(new OrderedGatewayFilter(this::route, Integer.MAX_VALUE));
+        AnnotationAwareOrderComparator.sort(filters);
+        return new Chain(filters, 0).filter(exchange);
+    }
+
+    static byte[] body(MockServerWebExchange exchange) {
+        return DataBufferUtils.join(exchange.getResponse().getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .block();
+    }
+
+    static byte[] gunzip(byte[] compressed) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Mono<Void> route(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return Mono.delay(upstreamLatency).then(Mono.fromRunnable(() -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getAttributes().put(ROUTED_ATTR, true);
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            upstreamHeaders.forEach((name, values) -> response.getHeaders().put(name, new ArrayList<>(values)));
+        }));
+    }
+
+    private Mono<Void> writeResponse(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange).then(Mono.defer(() -> {
+            if (exchange.getAttribute(ROUTED_ATTR) == null) {
+                return Mono.empty();
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            int half = upstreamBody.length / 2;
+            Flux<DataBuffer> body = Flux.just(Arrays.copyOfRange(upstreamBody, 0, half),
+                            Arrays.copyOfRange(upstreamBody, half, upstreamBody.length))
+                    .map(bytes -> response.bufferFactory().wrap(bytes));
+            return response.writeWith(body);
+        }));
+    }
+
+    private record Chain(List<GatewayFilter> filters, int index) implements GatewayFilterChain {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            if (index == filters.size()) {
+                return Mono.empty();
+            }
+            return filters.get(index).filter(exchange, new Chain(filters, index + 1));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.nnipa.gateway.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogRingBufferTest {
+
+    @Test
+    void roundsTheCapacityUpToAPowerOfTwo() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(5);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(buffer.offer(record(0, i))).isTrue();
+        }
+        assertThat(buffer.offer(record(0, 8))).isFalse();
+    }
+
+    @Test
+    void drainsInOrderUpToTheBatchSize() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(record(0, i));
+        }
+        List<AccessLogRecord> drained = new ArrayList<>();
+
+        assertThat(buffer.drain(drained::add, 3)).isEqualTo(3);
+        assertThat(buffer.drain(drained::add, 3)).isEqualTo(2);
+        assertThat(buffer.drain(drained::add, 3)).isZero();
+
+        assertThat(drained).extracting(AccessLogRecord::status).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void drainingFreesSlotsForLaterOffers() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+        List<AccessLogRecord> drained = new ArrayList<>();
+
+        // Several laps around the ring, full each time
+        for (int lap = 0; lap < 5; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(buffer.offer(record(lap, i))).isTrue();
+            }
+            assertThat(buffer.offer(record(lap, 4))).isFalse();
+            assertThat(buffer.drain(drained::add, 2)).isEqualTo(2);
+            assertThat(buffer.offer(record(lap, 4))).isTrue();
+            assertThat(buffer.drain(drained::add, 10)).isEqualTo(3);
+        }
+
+        assertThat(drained).hasSize(25);
+        assertThat(drained.subList(20, 25)).extracting(AccessLogRecord::status).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingTheyWereNotToldAbout() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(1024);
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (!buffer.offer(record(producer, i))) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        int[] lastSeen = {-1, -1, -1, -1};
+        AtomicInteger outOfOrder = new AtomicInteger();
+        AtomicInteger drained = new AtomicInteger();
+        while (done.getCount() > 0) {
+            drainOnce(buffer, lastSeen, outOfOrder, drained);
+        }
+        while (drainOnce(buffer, lastSeen, outOfOrder, drained)) {
+            // Whatever was published before the producers finished
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(drained.get() + rejected.get()).isEqualTo(producers * perProducer);
+        assertThat(outOfOrder).hasValue(0);
+    }
+
+    private static boolean drainOnce(AccessLogRingBuffer buffer, int[] lastSeen, AtomicInteger outOfOrder,
+                                     AtomicInteger drained) {
+        return buffer.drain(record -> {
+            int producer = (int) record.timestamp();
+            if (record.status() <= lastSeen[producer]) {
+                outOfOrder.incrementAndGet();
+            }
+            lastSeen[producer] = record.status();
+            drained.incrementAndGet();
+        }, 256) > 0;
+    }
+
+    private static AccessLogRecord record(long producer, int sequence) {
+        return new AccessLogRecord(producer, null, "GET", "/", "route", sequence, 0, null, null);
+    }
+}
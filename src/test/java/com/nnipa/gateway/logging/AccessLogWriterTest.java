@@ -0,0 +1,102 @@
+package com.nnipa.gateway.logging;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AccessLogWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void countsRecordsThatDoNotFitTheBuffer() {
+        properties.getAccessLog().setBufferSize(16);
+        writer = new AccessLogWriter(properties, meterRegistry);
+
+        for (int i = 0; i < 20; i++) {
+            writer.submit(record(200, "/api/v1/tenants/" + i));
+        }
+
+        assertThat(dropped()).isEqualTo(4);
+    }
+
+    @Test
+    void writesQueuedRecordsAsJsonLinesOnShutdown() throws Exception {
+        Path file = directory.resolve("access.log");
+        properties.getAccessLog().setFile(file.toString());
+        writer = new AccessLogWriter(properties, meterRegistry);
+        writer.start();
+
+        writer.submit(record(200, "/api/v1/tenants"));
+        writer.submit(new AccessLogRecord(0, "c-2", "POST", "/api/v1/\"users\"\n", "users", 503, 1_500_000,
+                "10.0.0.1", "upstream\tdown"));
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"path\":\"/api/v1/tenants\"", "\"status\":200");
+        assertThat(lines.get(1)).contains("\"path\":\"/api/v1/\\\"users\\\"\\u000a\"", "\"durationMs\":1.5",
+                "\"error\":\"upstream\\u0009down\"");
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void reopensTheFileOnceItCanBeWrittenAgain() throws Exception {
+        // A plain file where the log directory should be makes every open fail
+        Path blocker = Files.createFile(directory.resolve("logs"));
+        Path file = blocker.resolve("access.log");
+        properties.getAccessLog().setFile(file.toString());
+        properties.getAccessLog().setFlushInterval(Duration.ofMillis(10));
+        writer = new AccessLogWriter(properties, meterRegistry);
+        writer.start();
+
+        writer.submit(record(500, "/api/v1/tenants"));
+        Thread.sleep(200);
+        assertThat(Files.exists(file)).isFalse();
+
+        Files.delete(blocker);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!hasLines(file) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(Files.readAllLines(file)).singleElement().asString().contains("\"status\":500");
+        // Nothing had left the buffer when the open failed, so nothing was lost
+        assertThat(dropped()).isZero();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("gateway.accesslog.dropped").counter().count();
+    }
+
+    private static boolean hasLines(Path file) throws IOException {
+        return Files.exists(file) && Files.size(file) > 0;
+    }
+
+    private static AccessLogRecord record(int status, String path) {
+        return new AccessLogRecord(System.currentTimeMillis(), "c-1", "GET", path, "tenants", status, 2_000_000,
+                "127.0.0.1", null);
+    }
+}
@@ -0,0 +1,79 @@
+package com.nnipa.gateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitKeyTest {
+
+    private static final String ROUTE = "tenant-service";
+
+    @Test
+    void packsUuidsIntoTheirBits() {
+        UUID tenantId = UUID.randomUUID();
+
+        RateLimitKey key = RateLimitKey.tenant(ROUTE, tenantId.toString());
+
+        assertThat(key.high()).isEqualTo(tenantId.getMostSignificantBits());
+        assertThat(key.low()).isEqualTo(tenantId.getLeastSignificantBits());
+        assertThat(RateLimitKey.tenant(ROUTE, tenantId.toString().toUpperCase())).isEqualTo(key);
+        assertThat(key.toString()).isEqualTo(ROUTE + "/tenant:" + tenantId);
+    }
+
+    @Test
+    void keysAreScopedByRouteAndKind() {
+        String id = UUID.randomUUID().toString();
+
+        assertThat(RateLimitKey.tenant(ROUTE, id)).isNotEqualTo(RateLimitKey.user(ROUTE, id));
+        assertThat(RateLimitKey.tenant(ROUTE, id)).isNotEqualTo(RateLimitKey.tenant("user-service", id));
+    }
+
+    @Test
+    void hashesIdentifiersThatAreNotUuids() {
+        RateLimitKey key = RateLimitKey.user(ROUTE, "alice@example.com");
+
+        assertThat(RateLimitKey.user(ROUTE, "alice@example.com")).isEqualTo(key);
+        assertThat(RateLimitKey.user(ROUTE, "alice@example.org")).isNotEqualTo(key);
+        // Right length, wrong shape: still hashed rather than rejected
+        assertThat(RateLimitKey.user(ROUTE, "x".repeat(36)))
+                .isEqualTo(RateLimitKey.user(ROUTE, "x".repeat(36)))
+                .isNotEqualTo(RateLimitKey.user(ROUTE, "y".repeat(36)));
+    }
+
+    @Test
+    void storesIpv4InIpv4MappedForm() {
+        RateLimitKey key = RateLimitKey.ip(ROUTE, "192.168.10.7");
+
+        assertThat(key.high()).isZero();
+        assertThat(key.low()).isEqualTo(0xFFFF_C0A8_0A07L);
+        assertThat(RateLimitKey.ip(ROUTE, "::ffff:c0a8:a07")).isEqualTo(key);
+        assertThat(key.toString()).isEqualTo(ROUTE + "/ip:192.168.10.7");
+    }
+
+    @Test
+    void parsesEveryWayOfWritingAnIpv6Address() {
+        RateLimitKey key = RateLimitKey.ip(ROUTE, "2001:db8::1");
+
+        assertThat(key.high()).isEqualTo(0x2001_0db8_0000_0000L);
+        assertThat(key.low()).isEqualTo(1L);
+        assertThat(RateLimitKey.ip(ROUTE, "2001:0DB8:0:0:0:0:0:1")).isEqualTo(key);
+        assertThat(RateLimitKey.ip(ROUTE, "[2001:db8::1]")).isEqualTo(key);
+        assertThat(RateLimitKey.ip(ROUTE, "2001:db8::1%eth0")).isEqualTo(key);
+        assertThat(RateLimitKey.ip(ROUTE, "::1")).isEqualTo(new RateLimitKey(ROUTE, RateLimitKey.Kind.IP, 0, 1));
+        assertThat(key.toString()).isEqualTo(ROUTE + "/ip:20010db8000000000000000000000001");
+    }
+
+    @Test
+    void hashesAddressesThatDoNotParse() {
+        for (String address : new String[]{"256.1.1.1", "1.2.3", "1.2.3.4.5", "1..2.3", "1::2::3",
+                "2001:db8:0:0:0:0:0:0:1", "12345::1", "gggg::1", "unknown"}) {
+            RateLimitKey key = RateLimitKey.ip(ROUTE, address);
+
+            assertThat(RateLimitKey.ip(ROUTE, address)).as(address).isEqualTo(key);
+            assertThat(key).as(address).isNotEqualTo(RateLimitKey.ip(ROUTE, "0.0.0.0"));
+        }
+        assertThat(RateLimitKey.ip(ROUTE, "1::2::3")).isNotEqualTo(RateLimitKey.ip(ROUTE, "1::2::4"));
+    }
+}
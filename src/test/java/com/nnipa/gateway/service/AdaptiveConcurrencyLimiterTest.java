@@ -0,0 +1,135 @@
+package com.nnipa.gateway.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration QUEUE_TIME = Duration.ofSeconds(1);
+    private static final long RTT = Duration.ofMillis(10).toNanos();
+
+    @Test
+    void acquiresUpToTheLimitThenRejectsWithoutAQueue() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0, QUEUE_TIME);
+
+        StepVerifier.create(limiter.acquire()).verifyComplete();
+        StepVerifier.create(limiter.acquire()).verifyComplete();
+        StepVerifier.create(limiter.acquire())
+                .verifyError(AdaptiveConcurrencyLimiter.LimitExceededException.class);
+
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void releasedSlotsGoToQueuedRequestsInArrivalOrder() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2, QUEUE_TIME);
+        limiter.acquire().block();
+        List<String> granted = new ArrayList<>();
+        limiter.acquire().subscribe(null, null, () -> granted.add("first"));
+        limiter.acquire().subscribe(null, null, () -> granted.add("second"));
+        assertThat(limiter.getQueued()).isEqualTo(2);
+
+        limiter.onSuccess(RTT);
+        assertThat(granted).containsExactly("first");
+        limiter.onDropped();
+        assertThat(granted).containsExactly("first", "second");
+
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void rejectsOnceTheQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, QUEUE_TIME);
+        limiter.acquire().block();
+        Disposable waiting = limiter.acquire().subscribe();
+
+        StepVerifier.create(limiter.acquire())
+                .verifyError(AdaptiveConcurrencyLimiter.LimitExceededException.class);
+        assertThat(limiter.getQueued()).isEqualTo(1);
+        waiting.dispose();
+    }
+
+    @Test
+    void timedOutWaitersLeaveNoSlotBehind() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, Duration.ofMillis(20));
+        limiter.acquire().block();
+
+        StepVerifier.create(limiter.acquire())
+                .verifyError(AdaptiveConcurrencyLimiter.LimitExceededException.class);
+        limiter.onSuccess(RTT);
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getQueued()).isZero();
+        StepVerifier.create(limiter.acquire()).verifyComplete();
+    }
+
+    @Test
+    void cancelledWaitersDoNotTakeTheReleasedSlot() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2, QUEUE_TIME);
+        limiter.acquire().block();
+        Disposable cancelled = limiter.acquire().subscribe();
+        List<String> granted = new ArrayList<>();
+        limiter.acquire().subscribe(null, null, () -> granted.add("kept"));
+
+        cancelled.dispose();
+        limiter.onSuccess(RTT);
+
+        assertThat(granted).containsExactly("kept");
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void droppedRequestsBackTheLimitOffDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 8, 20, 0, QUEUE_TIME);
+
+        limiter.acquire().block();
+        limiter.onDropped();
+        assertThat(limiter.getLimit()).isEqualTo(9);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire().block();
+            limiter.onDropped();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void limitGrowsWhileUsedAtSteadyLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 100, 0, QUEUE_TIME);
+
+        for (int i = 0; i < 20; i++) {
+            for (int slot = 0; slot < 4; slot++) {
+                limiter.acquire().block();
+            }
+            for (int slot = 0; slot < 4; slot++) {
+                limiter.onSuccess(RTT);
+            }
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void limitStaysPutWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0, QUEUE_TIME);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire().block();
+            limiter.onSuccess(RTT);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+}
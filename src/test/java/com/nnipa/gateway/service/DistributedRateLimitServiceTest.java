@@ -0,0 +1,89 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.RateLimitDecision;
+import com.nnipa.gateway.model.RateLimitKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DistributedRateLimitServiceTest {
+
+    private static final RateLimitKey KEY = RateLimitKey.tenant("tenant-service", "acme");
+
+    private final InMemoryProxyManager proxyManager = new InMemoryProxyManager(1000, Duration.ofMinutes(1));
+
+    @Test
+    void servesRequestsFromTheLeaseUntilItRunsOut() {
+        DistributedRateLimitService node = node(Duration.ofMinutes(1));
+        DistributedRateLimitService other = node(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(node.tryConsume(KEY, 5, 50).allowed()).isTrue();
+        }
+        assertThat(node.getRemainingTokens(KEY)).isZero();
+
+        // One batch of ten was taken from the shared bucket, so another node sees forty left
+        RateLimitDecision decision = other.tryConsume(KEY, 5, 50);
+        assertThat(decision.remaining()).isEqualTo(9 + 30);
+    }
+
+    @Test
+    void expiredLeasesGiveUnspentTokensBack() {
+        // Every lease expires at once, as if each request came after the lease duration
+        DistributedRateLimitService node = node(Duration.ZERO);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(node.tryConsume(KEY, 5, 20).allowed()).as("request %d", i).isTrue();
+        }
+        assertThat(node.tryConsume(KEY, 5, 20).allowed()).isFalse();
+    }
+
+    @Test
+    void reportsRemainingAndResetFromTheSharedBucket() {
+        DistributedRateLimitService node = node(Duration.ofMinutes(1));
+
+        RateLimitDecision first = node.tryConsume(KEY, 5, 50);
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.remaining()).isEqualTo(49);
+        assertThat(first.nanosToRefill()).isZero();
+        // Ten tokens missing at five per second: two refill periods
+        assertThat(first.nanosToReset()).isBetween(TimeUnit.MILLISECONDS.toNanos(1500), TimeUnit.SECONDS.toNanos(2));
+
+        RateLimitDecision fromLease = node.tryConsume(KEY, 5, 50);
+        assertThat(fromLease.remaining()).isEqualTo(48);
+        assertThat(fromLease.nanosToReset()).isPositive().isLessThanOrEqualTo(first.nanosToReset());
+    }
+
+    @Test
+    void deniesWithTheTimeToTheNextRefillOnceTheBucketIsEmpty() {
+        DistributedRateLimitService node = node(Duration.ofMinutes(1));
+
+        assertThat(node.tryConsume(KEY, 1, 2).allowed()).isTrue();
+        assertThat(node.tryConsume(KEY, 1, 2).allowed()).isTrue();
+        RateLimitDecision denied = node.tryConsume(KEY, 1, 2);
+
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.remaining()).isZero();
+        assertThat(denied.nanosToRefill()).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(denied.nanosToReset()).isGreaterThan(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        DistributedRateLimitService node = node(Duration.ofMinutes(1));
+
+        assertThat(node.tryConsume(KEY, 1, 1).allowed()).isTrue();
+        assertThat(node.tryConsume(KEY, 1, 1).allowed()).isFalse();
+        assertThat(node.tryConsume(RateLimitKey.tenant("tenant-service", "globex"), 1, 1).allowed()).isTrue();
+    }
+
+    private DistributedRateLimitService node(Duration leaseDuration) {
+        ApiGatewayProperties properties = new ApiGatewayProperties();
+        properties.getRateLimiting().getDistributed().setLeaseDuration(leaseDuration);
+        return new DistributedRateLimitService(proxyManager, properties);
+    }
+}
@@ -0,0 +1,200 @@
+package com.nnipa.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.service.EdgeAuthorizationService.Decision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdgeAuthorizationServiceTest {
+
+    private static final ExchangeStrategies STRATEGIES = ExchangeStrategies.withDefaults();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final List<List<String>> calls = new ArrayList<>();
+    private final Map<String, Boolean> policy = new HashMap<>();
+    private HttpStatus status = HttpStatus.OK;
+
+    private LoadBalancerService loadBalancerService;
+    private EdgeAuthorizationService service;
+
+    @BeforeEach
+    void setUp() {
+        ApiGatewayProperties.LoadBalancing.ServiceDefinition definition =
+                new ApiGatewayProperties.LoadBalancing.ServiceDefinition();
+        definition.setInstances(List.of(URI.create("http://localhost:4201")));
+        properties.getLoadBalancing().getServices().put("authorization-service", definition);
+        properties.getAuthorization().setPrefetchPermissions(List.of("tenants:read", "users:read"));
+        policy.put("tenants:read", true);
+        policy.put("tenants:update", false);
+        policy.put("users:read", true);
+        build();
+    }
+
+    @Test
+    void prefetchesMissingPermissionsInOneBatchAndAnswersThemFromTheCache() {
+        assertThat(decide("u1", "tenants:update")).isEqualTo(Decision.DENY);
+        assertThat(decide("u1", "tenants:read")).isEqualTo(Decision.ALLOW);
+        assertThat(decide("u1", "users:read")).isEqualTo(Decision.ALLOW);
+
+        assertThat(calls).containsExactly(List.of("tenants:update", "tenants:read", "users:read"));
+
+        // Only the permission this user has no decision for yet is asked for
+        policy.put("users:delete", false);
+        assertThat(decide("u1", "users:delete")).isEqualTo(Decision.DENY);
+        assertThat(calls.get(1)).containsExactly("users:delete");
+    }
+
+    @Test
+    void decisionsAreCachedPerUser() {
+        decide("u1", "tenants:read");
+        decide("u2", "tenants:read");
+
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void permissionsLeftOutOfTheAnswerAreUnavailableAndNotCached() {
+        assertThat(decide("u1", "reports:read")).isEqualTo(Decision.UNAVAILABLE);
+        assertThat(decide("u1", "reports:read")).isEqualTo(Decision.UNAVAILABLE);
+
+        assertThat(calls).hasSize(2);
+        assertThat(decide("u1", "tenants:read")).isEqualTo(Decision.ALLOW);
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void denialsExpireAfterTheShorterDenyTtl() throws InterruptedException {
+        properties.getAuthorization().setDenyTtl(Duration.ofMillis(1));
+        build();
+
+        decide("u1", "tenants:update");
+        Thread.sleep(20);
+        assertThat(decide("u1", "tenants:read")).isEqualTo(Decision.ALLOW);
+        assertThat(decide("u1", "tenants:update")).isEqualTo(Decision.DENY);
+
+        assertThat(calls).hasSize(2);
+        assertThat(calls.get(1)).containsExactly("tenants:update");
+    }
+
+    @Test
+    void failedCallsAreUnavailableAndNotCached() {
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+        assertThat(decide("u1", "tenants:read")).isEqualTo(Decision.UNAVAILABLE);
+
+        status = HttpStatus.OK;
+        assertThat(decide("u1", "tenants:read")).isEqualTo(Decision.ALLOW);
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void clientErrorsDoNotEjectTheInstance() {
+        status = HttpStatus.NOT_FOUND;
+        for (int i = 0; i < 5; i++) {
+            assertThat(decide("u1", "tenants:read")).isEqualTo(Decision.UNAVAILABLE);
+        }
+
+        UpstreamInstance instance = loadBalancerService.getInstances("authorization-service").get(0);
+        assertThat(instance.isEjected()).isFalse();
+        assertThat(instance.getInFlight()).isZero();
+    }
+
+    @Test
+    void gatewayErrorsEjectTheInstance() {
+        status = HttpStatus.BAD_GATEWAY;
+        for (int i = 0; i < 3; i++) {
+            decide("u1", "tenants:read");
+        }
+
+        assertThat(loadBalancerService.getInstances("authorization-service").get(0).isEjected()).isTrue();
+    }
+
+    @Test
+    void invalidatesOnlyTheMatchingUser() {
+        decide("u1", "tenants:read");
+        decide("u2", "tenants:read");
+
+        assertThat(service.invalidate("u1", null)).isEqualTo(2);
+        decide("u1", "tenants:read");
+        decide("u2", "tenants:read");
+
+        assertThat(calls).hasSize(3);
+    }
+
+    private Decision decide(String userId, String permission) {
+        return service.decide(userId, "t1", permission, "corr").block();
+    }
+
+    private void build() {
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(this::exchange);
+        loadBalancerService = new LoadBalancerService(properties, WebClient.builder(), new SimpleMeterRegistry());
+        service = new EdgeAuthorizationService(properties, loadBalancerService, webClient, new SimpleMeterRegistry());
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        MockClientHttpRequest body = new MockClientHttpRequest(request.method(), request.url());
+        return request.body().insert(body, new InsertContext())
+                .then(Mono.defer(body::getBodyAsString))
+                .map(json -> {
+                    try {
+                        EdgeAuthorizationService.DecisionRequest decisionRequest =
+                                objectMapper.readValue(json, EdgeAuthorizationService.DecisionRequest.class);
+                        calls.add(decisionRequest.permissions());
+                        Map<String, Boolean> answered = new HashMap<>();
+                        for (String permission : decisionRequest.permissions()) {
+                            if (policy.containsKey(permission)) {
+                                answered.put(permission, policy.get(permission));
+                            }
+                        }
+                        return ClientResponse.create(status, STRATEGIES)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(objectMapper.writeValueAsString(Map.of("decisions", answered)))
+                                .build();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+    }
+
+    private static final class InsertContext implements BodyInserter.Context {
+
+        @Override
+        public List<HttpMessageWriter<?>> messageWriters() {
+            return STRATEGIES.messageWriters();
+        }
+
+        @Override
+        public Optional<ServerHttpRequest> serverRequest() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, Object> hints() {
+            return Map.of();
+        }
+    }
+}
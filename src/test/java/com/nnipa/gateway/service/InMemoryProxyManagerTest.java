@@ -0,0 +1,79 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.model.RateLimitKey;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryProxyManagerTest {
+
+    private static final RateLimitKey KEY = RateLimitKey.ip("auth-service", "10.0.0.1");
+
+    private final InMemoryProxyManager proxyManager = new InMemoryProxyManager(1000, Duration.ofMinutes(1));
+
+    @Test
+    void proxiesForTheSameKeyShareState() {
+        assertThat(bucket(KEY).tryConsume(3)).isTrue();
+
+        assertThat(bucket(KEY).getAvailableTokens()).isEqualTo(7);
+        assertThat(bucket(RateLimitKey.ip("auth-service", "10.0.0.2")).getAvailableTokens()).isEqualTo(10);
+    }
+
+    @Test
+    void concurrentConsumersNeverOverdrawTheBucket() {
+        AtomicInteger granted = new AtomicInteger();
+        CompletableFuture<?>[] consumers = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    Bucket bucket = bucket(KEY);
+                    for (int j = 0; j < 10; j++) {
+                        if (bucket.tryConsume(1)) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(consumers).join();
+
+        assertThat(granted).hasValue(10);
+    }
+
+    @Test
+    void removedProxiesStartOver() {
+        bucket(KEY).tryConsume(10);
+
+        proxyManager.removeProxy(KEY);
+
+        assertThat(bucket(KEY).getAvailableTokens()).isEqualTo(10);
+    }
+
+    @Test
+    void asyncProxiesSeeTheSameState() {
+        bucket(KEY).tryConsume(4);
+
+        long available = proxyManager.asAsync().builder()
+                .build(KEY, () -> CompletableFuture.completedFuture(configuration()))
+                .getAvailableTokens()
+                .join();
+
+        assertThat(available).isEqualTo(6);
+    }
+
+    private Bucket bucket(RateLimitKey key) {
+        return proxyManager.builder().build(key, InMemoryProxyManagerTest::configuration);
+    }
+
+    private static BucketConfiguration configuration() {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(10, Refill.intervally(1, Duration.ofHours(1))))
+                .build();
+    }
+}
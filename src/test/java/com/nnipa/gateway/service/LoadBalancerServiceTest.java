@@ -0,0 +1,68 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadBalancerServiceTest {
+
+    private static final long LATENCY = Duration.ofMillis(20).toNanos();
+
+    private LoadBalancerService service;
+
+    @BeforeEach
+    void setUp() {
+        ApiGatewayProperties properties = new ApiGatewayProperties();
+        ApiGatewayProperties.LoadBalancing.ServiceDefinition definition =
+                new ApiGatewayProperties.LoadBalancing.ServiceDefinition();
+        definition.setInstances(List.of(URI.create("http://localhost:4101")));
+        properties.getLoadBalancing().getServices().put("tenant-service", definition);
+        service = new LoadBalancerService(properties, WebClient.builder(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void consecutiveFailuresEjectTheInstance() {
+        UpstreamInstance instance = null;
+        for (int i = 0; i < 3; i++) {
+            instance = service.choose("tenant-service");
+            service.release(instance, LATENCY, false);
+        }
+
+        assertThat(instance.isEjected()).isTrue();
+        assertThat(instance.getInFlight()).isZero();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        UpstreamInstance instance = service.choose("tenant-service");
+        service.release(instance, LATENCY, false);
+        service.release(service.choose("tenant-service"), LATENCY, false);
+        service.release(service.choose("tenant-service"), LATENCY, true);
+        service.release(service.choose("tenant-service"), LATENCY, false);
+
+        assertThat(instance.isEjected()).isFalse();
+    }
+
+    @Test
+    void cancelledRequestsOnlyFreeTheirSlot() {
+        UpstreamInstance instance = service.choose("tenant-service");
+        service.release(instance, LATENCY, false);
+        service.release(service.choose("tenant-service"), LATENCY, false);
+        double latency = instance.getLatencyNanos();
+
+        service.release(service.choose("tenant-service"));
+
+        assertThat(instance.getInFlight()).isZero();
+        assertThat(instance.getLatencyNanos()).isEqualTo(latency);
+        service.release(service.choose("tenant-service"), LATENCY, false);
+        assertThat(instance.isEjected()).isTrue();
+    }
+}
@@ -0,0 +1,108 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.CachedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescingService service = new RequestCoalescingService(new ApiGatewayProperties(), meterRegistry);
+
+    @Test
+    void requestsBeforeTheResponseStartsFollowTheLeader() {
+        RequestCoalescingService.Membership leader = service.join("key");
+        RequestCoalescingService.Membership follower = service.join("key");
+
+        assertThat(leader.leader()).isTrue();
+        assertThat(follower.leader()).isFalse();
+        assertThat(follower.call()).isSameAs(leader.call());
+        assertThat(service.join("other").leader()).isTrue();
+    }
+
+    @Test
+    void closingReportsWhetherAnyoneIsWaiting() {
+        RequestCoalescingService.Membership alone = service.join("alone");
+        assertThat(alone.call().close()).isFalse();
+
+        RequestCoalescingService.Membership followed = service.join("followed");
+        service.join("followed");
+        assertThat(followed.call().close()).isTrue();
+        assertThat(followed.call().close()).isFalse();
+    }
+
+    @Test
+    void requestsAfterTheResponseStartsLeadANewCall() {
+        RequestCoalescingService.Membership first = service.join("key");
+        first.call().close();
+
+        RequestCoalescingService.Membership second = service.join("key");
+
+        assertThat(second.leader()).isTrue();
+        assertThat(second.call()).isNotSameAs(first.call());
+    }
+
+    @Test
+    void followersGetTheSharedResponse() {
+        RequestCoalescingService.Membership leader = service.join("key");
+        RequestCoalescingService.Membership follower = service.join("key");
+        CachedResponse response = new CachedResponse(HttpStatus.OK, HttpHeaders.EMPTY, new byte[]{1, 2},
+                List.of(), System.currentTimeMillis(), 0);
+
+        leader.call().share(response);
+        leader.call().abandon();
+
+        StepVerifier.create(follower.call().response(TIMEOUT))
+                .expectNext(response)
+                .verifyComplete();
+        assertThat(meterRegistry.counter("gateway.coalescing.unshared").count()).isZero();
+    }
+
+    @Test
+    void abandonedFollowersGetNothingAndProxyOnTheirOwn() {
+        RequestCoalescingService.Membership leader = service.join("key");
+        RequestCoalescingService.Membership follower = service.join("key");
+
+        leader.call().abandon();
+
+        StepVerifier.create(follower.call().response(TIMEOUT)).verifyComplete();
+        assertThat(meterRegistry.counter("gateway.coalescing.unshared").count()).isEqualTo(1);
+        assertThat(service.join("key").leader()).isTrue();
+    }
+
+    @Test
+    void followersGetTheLeadersError() {
+        RequestCoalescingService.Membership leader = service.join("key");
+        RequestCoalescingService.Membership follower = service.join("key");
+        IllegalStateException error = new IllegalStateException("connection refused");
+
+        leader.call().fail(error);
+
+        StepVerifier.create(follower.call().response(TIMEOUT))
+                .expectErrorMatches(e -> e == error)
+                .verify();
+    }
+
+    @Test
+    void followersTimeOutWithGatewayTimeout() {
+        service.join("key");
+        RequestCoalescingService.Membership follower = service.join("key");
+
+        StepVerifier.create(follower.call().response(Duration.ofMillis(10)))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException status
+                        && status.getStatusCode() == HttpStatus.GATEWAY_TIMEOUT)
+                .verify();
+    }
+}
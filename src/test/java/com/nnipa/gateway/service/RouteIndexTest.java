@@ -0,0 +1,159 @@
+package com.nnipa.gateway.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteIndexTest {
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, List<String>> pathPatterns = new LinkedHashMap<>();
+
+    @Test
+    void moreSpecificPatternWinsWhereverItIsDeclared() {
+        route("authorization-service", 0, "/api/v1/authz/**");
+        route("authorization-admin", 0, "/api/v1/authz/admin/**");
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        assertThat(candidates(index, "/api/v1/authz/admin/roles"))
+                .containsExactly("authorization-admin", "authorization-service");
+        assertThat(candidates(index, "/api/v1/authz/check")).containsExactly("authorization-service");
+        assertThat(candidates(index, "/api/v1/authz")).containsExactly("authorization-service");
+    }
+
+    @Test
+    void exactRootAndCatchAllBothMatchTheBarePrefix() {
+        route("authz-docs-catchall", 0, "/authz-docs/**");
+        route("authz-docs-root", 0, "/authz-docs");
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        assertThat(candidates(index, "/authz-docs")).containsExactly("authz-docs-root", "authz-docs-catchall");
+        assertThat(candidates(index, "/authz-docs/swagger-ui/index.html")).containsExactly("authz-docs-catchall");
+        assertThat(candidates(index, "/authz-docsx")).isEmpty();
+    }
+
+    @Test
+    void trailingSlashIsLeftToThePredicate() {
+        route("tenant-service", 0, "/api/v1/tenants");
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        assertThat(candidates(index, "/api/v1/tenants/")).containsExactly("tenant-service");
+        assertThat(candidates(index, "/api/v1/tenants/42")).isEmpty();
+    }
+
+    @Test
+    void captureTheRestMatchesZeroOrMoreSegments() {
+        route("storage-service", 0, "/files/{*path}");
+        route("user-by-id", 0, "/api/v1/users/{id}");
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        assertThat(candidates(index, "/files")).containsExactly("storage-service");
+        assertThat(candidates(index, "/files/a/b/c.txt")).containsExactly("storage-service");
+        assertThat(candidates(index, "/filesx/a")).isEmpty();
+        assertThat(candidates(index, "/api/v1/users/42")).containsExactly("user-by-id");
+        assertThat(candidates(index, "/api/v1/users/42/roles")).isEmpty();
+    }
+
+    @Test
+    void routesWithoutPathPredicateAreAlwaysCandidatesInOrder() {
+        route("tenant-service", 0, "/api/v1/tenants/**");
+        route("host-route", 0);
+        route("early-host-route", -1);
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        assertThat(index.getUnindexedRoutes()).isEqualTo(2);
+        assertThat(candidates(index, "/api/v1/tenants/42"))
+                .containsExactly("early-host-route", "tenant-service", "host-route");
+        assertThat(candidates(index, "/anything")).containsExactly("early-host-route", "host-route");
+    }
+
+    @Test
+    void unparsablePatternsFallBackToLinearEvaluation() {
+        route("broken", 0, "/api/{unclosed");
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        assertThat(index.getIndexedPatterns()).isZero();
+        assertThat(candidates(index, "/somewhere/else")).containsExactly("broken");
+    }
+
+    @Test
+    void candidatesIncludeEveryRouteWhosePatternMatches() {
+        List<String> patterns = List.of("/api/v1/authz/**", "/api/v1/authz/admin/**", "/authz-docs",
+                "/authz-docs/**", "/api/v1/tenants", "/api/v1/tenants/{id}", "/api/*/users/**", "/files/{*path}",
+                "/static/*.css", "/api/v?/health", "/api/v1/users/{id:\\d+}/roles", "/**");
+        for (int i = 0; i < patterns.size(); i++) {
+            route("route-" + i, 0, patterns.get(i));
+        }
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+        List<String> paths = List.of("/", "/api", "/api/v1/authz", "/api/v1/authz/admin", "/api/v1/authz/admin/x/y",
+                "/authz-docs", "/authz-docs/", "/authz-docs/a", "/api/v1/tenants", "/api/v1/tenants/",
+                "/api/v1/tenants/7", "/api/v2/users", "/api/v2/users/1/roles", "/files", "/files/a/b",
+                "/static/site.css", "/static/a/site.css", "/api/v1/health", "/api/v10/health",
+                "/api/v1/users/12/roles", "/api/v1/users/ab/roles", "/api//v1//tenants", "/api/v1/tenant%20s");
+
+        for (String path : paths) {
+            PathContainer container = PathContainer.parsePath(path);
+            List<Route> candidates = index.candidates(container);
+            for (int i = 0; i < patterns.size(); i++) {
+                PathPattern pattern = PathPatternParser.defaultInstance.parse(patterns.get(i));
+                if (pattern.matches(container)) {
+                    assertThat(candidates).as("%s for %s", pattern, path).contains(routes.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void lookupReturnsTheFirstCandidateWhosePredicateAccepts() {
+        route("authorization-service", 0, "/api/v1/authz/**");
+        route("authorization-admin", 0, "/api/v1/authz/admin/**");
+        RouteIndex index = RouteIndex.build(routes, pathPatterns);
+
+        Route admin = index.lookup(exchange("/api/v1/authz/admin/roles")).block();
+        Route service = index.lookup(exchange("/api/v1/authz/check")).block();
+
+        assertThat(admin.getId()).isEqualTo("authorization-admin");
+        assertThat(service.getId()).isEqualTo("authorization-service");
+        assertThat(index.lookup(exchange("/api/v1/tenants")).blockOptional()).isEmpty();
+    }
+
+    private void route(String id, int order, String... patterns) {
+        List<PathPattern> parsed = new ArrayList<>();
+        for (String pattern : patterns) {
+            try {
+                parsed.add(PathPatternParser.defaultInstance.parse(pattern));
+            } catch (RuntimeException e) {
+                // Handed to the index as written; the route then never matches
+            }
+        }
+        routes.add(Route.async()
+                .id(id)
+                .uri("http://localhost")
+                .order(order)
+                .predicate(exchange -> patterns.length == 0
+                        || parsed.stream().anyMatch(pattern -> pattern.matches(exchange.getRequest().getPath())))
+                .build());
+        if (patterns.length > 0) {
+            pathPatterns.put(id, List.of(patterns));
+        }
+    }
+
+    private static List<String> candidates(RouteIndex index, String path) {
+        return index.candidates(PathContainer.parsePath(path)).stream().map(Route::getId).toList();
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+}
@@ -0,0 +1,199 @@
+package com.nnipa.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.filter.ResponseCacheGatewayFilterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.factory.GatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.RewritePathGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.StripPrefixGatewayFilterFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.RoutePredicateFactory;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTableServiceTest {
+
+    private static final String TENANTS = """
+            routes:
+              - id: tenants
+                uri: http://localhost:4001
+                predicates:
+                  - Path=/api/v1/tenants/**
+                filters:
+                  - StripPrefix=1
+            """;
+
+    @TempDir
+    Path directory;
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Object> events = new ArrayList<>();
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("routes.yml");
+        properties.getRouteTable().setFile(file.toString());
+        beanFactory.addBean("path", new PathRoutePredicateFactory());
+        beanFactory.addBean("stripPrefix", new StripPrefixGatewayFilterFactory());
+        beanFactory.addBean("rewritePath", new RewritePathGatewayFilterFactory());
+        beanFactory.addBean("responseCache", new ResponseCacheGatewayFilterFactory(
+                new ResponseCacheService(properties, meterRegistry)));
+    }
+
+    @Test
+    void loadsTheFileAtStartupAsGenerationOne() throws IOException {
+        Files.writeString(file, TENANTS);
+
+        RouteTableService service = service();
+
+        assertThat(ids(service)).containsExactly("tenants");
+        assertThat(service.getGeneration()).isEqualTo(1);
+    }
+
+    @Test
+    void refusesToStartWithAnInvalidFile() throws IOException {
+        Files.writeString(file, TENANTS.replace("StripPrefix=1", "NoSuchFilter"));
+
+        assertThatThrownBy(this::service).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void validReloadSwapsTheRoutesAndCountsOnceTheTableIsBuilt() throws IOException {
+        Files.writeString(file, TENANTS);
+        RouteTableService service = service();
+
+        Files.writeString(file, TENANTS + """
+                  - id: users
+                    uri: http://localhost:4002
+                    predicates:
+                      - Path=/api/v1/users/**
+                """);
+        service.reload();
+
+        assertThat(ids(service)).containsExactly("tenants", "users");
+        assertThat(events).hasSize(1).first().isInstanceOf(RefreshRoutesEvent.class);
+        assertThat(service.getGeneration()).isEqualTo(1);
+
+        service.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+        assertThat(service.getGeneration()).isEqualTo(2);
+        assertThat(service.getActivatedAt()).isNotNull();
+    }
+
+    @Test
+    void unchangedFileIsNotReloaded() throws IOException {
+        Files.writeString(file, TENANTS);
+        RouteTableService service = service();
+
+        service.reload();
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void refreshesFromElsewhereKeepTheGeneration() throws IOException {
+        Files.writeString(file, TENANTS);
+        RouteTableService service = service();
+
+        service.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+        service.onRoutesRefreshed(new RefreshRoutesResultEvent(this));
+
+        assertThat(service.getGeneration()).isEqualTo(1);
+        assertThat(service.getActivatedAt()).isNotNull();
+    }
+
+    @Test
+    void failedRebuildKeepsTheGeneration() throws IOException {
+        Files.writeString(file, TENANTS);
+        RouteTableService service = service();
+        Files.writeString(file, TENANTS.replace("StripPrefix=1", "StripPrefix=2"));
+        service.reload();
+
+        service.onRoutesRefreshed(new RefreshRoutesResultEvent(this, new IllegalStateException("boom")));
+
+        assertThat(service.getGeneration()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsFilterArgsThatDoNotBind() throws IOException {
+        Files.writeString(file, TENANTS);
+        RouteTableService service = service();
+
+        Files.writeString(file, TENANTS + """
+                  - id: cached
+                    uri: http://localhost:4003
+                    predicates:
+                      - Path=/api/v1/cached/**
+                    filters:
+                      - name: ResponseCache
+                        args:
+                          ttl: abc
+                """);
+        service.reload();
+
+        assertRejected(service);
+    }
+
+    @Test
+    void rejectsUnknownNamesDuplicateIdsAndBrokenPatterns() throws IOException {
+        Files.writeString(file, TENANTS);
+        RouteTableService service = service();
+
+        for (String broken : List.of(
+                TENANTS.replace("StripPrefix=1", "NoSuchFilter"),
+                TENANTS.replace("Path=", "NoSuchPredicate="),
+                TENANTS + TENANTS.substring(TENANTS.indexOf("  - id")),
+                TENANTS.replace("/api/v1/tenants/**", "/api/{id/**"),
+                TENANTS.replace("StripPrefix=1", "RewritePath=/api/(?<rest.*), /${rest}"),
+                "routes: [")) {
+            Files.writeString(file, broken);
+            service.reload();
+        }
+
+        assertThat(meterRegistry.counter("gateway.routes.reloads.rejected").count()).isEqualTo(6);
+        assertThat(ids(service)).containsExactly("tenants");
+        assertThat(events).isEmpty();
+    }
+
+    private void assertRejected(RouteTableService service) {
+        assertThat(ids(service)).containsExactly("tenants");
+        assertThat(events).isEmpty();
+        assertThat(meterRegistry.counter("gateway.routes.reloads.rejected").count()).isEqualTo(1);
+        assertThat(service.getGeneration()).isEqualTo(1);
+    }
+
+    private RouteTableService service() {
+        ConfigurationService configurationService = new ConfigurationService(beanFactory,
+                ApplicationConversionService::getSharedInstance, () -> null);
+        return new RouteTableService(properties, new GatewayProperties(),
+                beanFactory.getBeanProvider(ResolvableType.forRawClass(RoutePredicateFactory.class)),
+                beanFactory.getBeanProvider(ResolvableType.forRawClass(GatewayFilterFactory.class)),
+                events::add, new StandardEnvironment(), new ObjectMapper(), configurationService, meterRegistry);
+    }
+
+    private static List<String> ids(RouteTableService service) {
+        return service.getRouteDefinitions().map(RouteDefinition::getId).collectList().block();
+    }
+}
@@ -0,0 +1,105 @@
+package com.nnipa.gateway.service;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import com.nnipa.gateway.model.VerifiedPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationServiceTest {
+
+    private static final Instant NOW = Instant.now();
+    private static final long IN_ONE_HOUR = NOW.plusSeconds(3600).toEpochMilli();
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenRevocationService service = new TokenRevocationService(properties, meterRegistry);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void revokedTokensAreRejectedAndOthersPass() {
+        service.revokeToken("revoked", IN_ONE_HOUR);
+
+        assertThat(service.isRevoked(principal("revoked", UUID.randomUUID(), NOW))).isTrue();
+        assertThat(service.isRevoked(principal("valid", UUID.randomUUID(), NOW))).isFalse();
+        assertThat(meterRegistry.counter("gateway.auth.revocation", "result", "revoked").count()).isEqualTo(1);
+    }
+
+    @Test
+    void alreadyExpiredTokensAreNotStored() {
+        service.revokeToken("expired", NOW.minusSeconds(1).toEpochMilli());
+
+        assertThat(service.size()).isZero();
+    }
+
+    @Test
+    void revokingAUserOnlyRejectsTokensIssuedUpToTheRevocation() {
+        UUID userId = UUID.randomUUID();
+        service.revokeUser(userId, NOW.toEpochMilli(), IN_ONE_HOUR);
+
+        assertThat(service.isRevoked(principal("old", userId, NOW.minusSeconds(60)))).isTrue();
+        assertThat(service.isRevoked(principal("same", userId, NOW))).isTrue();
+        assertThat(service.isRevoked(principal("new", userId, NOW.plusSeconds(60)))).isFalse();
+        assertThat(service.isRevoked(principal("other", UUID.randomUUID(), NOW.minusSeconds(60)))).isFalse();
+    }
+
+    @Test
+    void disabledServiceRevokesNothing() {
+        properties.getRevocation().setEnabled(false);
+        service.revokeToken("revoked", IN_ONE_HOUR);
+
+        assertThat(service.isRevoked(principal("revoked", UUID.randomUUID(), NOW))).isFalse();
+    }
+
+    @Test
+    void fileEntriesAreLoadedAndUserLinesNeedARevocationTime() throws IOException {
+        UUID revokedUser = UUID.randomUUID();
+        UUID incompleteUser = UUID.randomUUID();
+        long exp = NOW.plusSeconds(3600).getEpochSecond();
+        long revokedAt = NOW.minusSeconds(600).getEpochSecond();
+        Path file = directory.resolve("revocations.txt");
+        Files.writeString(file, String.join("\n",
+                "# comment",
+                "jti file-token " + exp,
+                "user " + revokedUser + " " + exp + " " + revokedAt,
+                "user " + incompleteUser + " " + exp,
+                "bogus line"));
+        startWith(file);
+
+        assertThat(service.isRevoked(principal("file-token", UUID.randomUUID(), NOW))).isTrue();
+        assertThat(service.isRevoked(principal("t1", revokedUser, NOW.minusSeconds(601)))).isTrue();
+        assertThat(service.isRevoked(principal("t2", revokedUser, NOW.minusSeconds(599)))).isFalse();
+        assertThat(service.isRevoked(principal("t3", incompleteUser, NOW.minusSeconds(3000)))).isFalse();
+        assertThat(service.size()).isEqualTo(2);
+    }
+
+    private void startWith(Path file) {
+        properties.getRevocation().setFile(file.toString());
+        service.start();
+    }
+
+    private static VerifiedPrincipal principal(String tokenId, UUID userId, Instant issuedAt) {
+        return VerifiedPrincipal.builder()
+                .tokenId(tokenId)
+                .userId(userId)
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(3600))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.nnipa.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEverythingPut() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put(BloomFilter.hash("token-" + i));
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain(BloomFilter.hash("token-" + i))).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAtExpectedSize() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(BloomFilter.hash("revoked-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(BloomFilter.hash("valid-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.001);
+
+        assertThat(filter.mightContain(BloomFilter.hash("anything"))).isFalse();
+        assertThat(filter.mightContain(0)).isFalse();
+    }
+
+    @Test
+    void hashesDependOnEveryCharacterAndBothHalves() {
+        assertThat(BloomFilter.hash("abc")).isEqualTo(BloomFilter.hash(new StringBuilder("abc")));
+        assertThat(BloomFilter.hash("abc")).isNotEqualTo(BloomFilter.hash("abd"));
+        assertThat(BloomFilter.hash("abc")).isNotEqualTo(BloomFilter.hash("cba"));
+
+        UUID id = UUID.randomUUID();
+        long hash = BloomFilter.hash(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        assertThat(hash).isNotEqualTo(BloomFilter.hash(id.getLeastSignificantBits(), id.getMostSignificantBits()));
+        assertThat(hash).isNotEqualTo(BloomFilter.hash(id.getMostSignificantBits(), id.getLeastSignificantBits() + 1));
+    }
+}
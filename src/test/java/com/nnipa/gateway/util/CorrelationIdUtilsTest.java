@@ -0,0 +1,69 @@
+package com.nnipa.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdUtilsTest {
+
+    @Test
+    void generatesVersion7UuidsCarryingTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        String id = CorrelationIdUtils.generateCorrelationId();
+        long after = System.currentTimeMillis();
+
+        UUID uuid = UUID.fromString(id);
+        assertThat(uuid.toString()).isEqualTo(id);
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after);
+        assertThat(CorrelationIdUtils.isValid(id)).isTrue();
+    }
+
+    @Test
+    void idsFromLaterMillisecondsSortAfterEarlierOnes() throws InterruptedException {
+        String earlier = CorrelationIdUtils.generateCorrelationId();
+        Thread.sleep(2);
+        String later = CorrelationIdUtils.generateCorrelationId();
+
+        assertThat(later).isGreaterThan(earlier);
+    }
+
+    @Test
+    void idsGeneratedInTheSameMillisecondStayUnique() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(CorrelationIdUtils.generateCorrelationId());
+        }
+
+        assertThat(ids).hasSize(100_000);
+    }
+
+    @Test
+    void acceptsCanonicalUuidsOfAnyVersionAndCase() {
+        assertThat(CorrelationIdUtils.isValid(UUID.randomUUID().toString())).isTrue();
+        assertThat(CorrelationIdUtils.isValid(UUID.randomUUID().toString().toUpperCase())).isTrue();
+        assertThat(CorrelationIdUtils.isValid("00000000-0000-0000-0000-000000000000")).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedIds() {
+        String valid = "0190f3c2-7b1a-7c3d-9e4f-0a1b2c3d4e5f";
+        assertThat(CorrelationIdUtils.isValid(valid)).isTrue();
+
+        assertThat(CorrelationIdUtils.isValid(null)).isFalse();
+        assertThat(CorrelationIdUtils.isValid("")).isFalse();
+        assertThat(CorrelationIdUtils.isValid(valid.substring(1))).isFalse();
+        assertThat(CorrelationIdUtils.isValid(valid + "0")).isFalse();
+        assertThat(CorrelationIdUtils.isValid(valid.replace("-", ""))).isFalse();
+        assertThat(CorrelationIdUtils.isValid("0190f3c27-b1a-7c3d-9e4f-0a1b2c3d4e5f")).isFalse();
+        assertThat(CorrelationIdUtils.isValid("0190f3c2-7b1a-7c3d-9e4f-0a1b2c3d4e5g")).isFalse();
+        assertThat(CorrelationIdUtils.isValid("0190f3c2-7b1a-7c3d-9e4f-0a1b2c3d4e5٠")).isFalse();
+        assertThat(CorrelationIdUtils.isValid("0190f3c2-7b1a-7c3d-9e4f-0a1b2c3d\r\nX:")).isFalse();
+        assertThat(CorrelationIdUtils.isValid("0190f3c2-7b1a-7c3d-9e4f-0a1b2c3d4e5 ")).isFalse();
+    }
+}
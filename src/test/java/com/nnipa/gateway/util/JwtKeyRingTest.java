@@ -0,0 +1,245 @@
+package com.nnipa.gateway.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRingTest {
+
+    private static final String SECRET_A = "a".repeat(32);
+    private static final String SECRET_B = "b".repeat(32);
+    private static final String LEGACY_SECRET = "legacy-secret-legacy-secret-legacy";
+
+    private static final KeyPair FIRST = Jwts.SIG.RS256.keyPair().build();
+    private static final KeyPair SECOND = Jwts.SIG.RS256.keyPair().build();
+    private static final KeyPair THIRD = Jwts.SIG.RS256.keyPair().build();
+
+    @TempDir
+    Path directory;
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+
+    @Test
+    void picksTheKeyNamedByTheTokensKid() {
+        properties.getSecurity().setKeys(List.of(hmacKey("a", SECRET_A), hmacKey("b", SECRET_B)));
+        JwtKeyRing ring = ring();
+
+        assertThat(subject(ring, hmacToken("b", SECRET_B))).isEqualTo("user");
+        assertThatThrownBy(() -> subject(ring, hmacToken("a", SECRET_B))).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void missingOrUnknownKidFallsBackToTheDefaultKey() {
+        properties.getSecurity().setJwtSecret(LEGACY_SECRET);
+        properties.getSecurity().setKeys(List.of(hmacKey("a", SECRET_A)));
+        JwtKeyRing ring = ring();
+
+        assertThat(subject(ring, hmacToken(null, LEGACY_SECRET))).isEqualTo("user");
+        assertThat(subject(ring, hmacToken("gone", LEGACY_SECRET))).isEqualTo("user");
+    }
+
+    @Test
+    void unknownKidWithoutDefaultKeyIsRejected() {
+        properties.getSecurity().setKeys(List.of(hmacKey("a", SECRET_A)));
+        JwtKeyRing ring = ring();
+
+        assertThatThrownBy(() -> ring.parserFor(hmacToken("gone", SECRET_A)))
+                .isInstanceOf(UnsupportedJwtException.class);
+        assertThatThrownBy(() -> ring.parserFor(hmacToken(null, SECRET_A)))
+                .isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void configuredKeysOnlyAcceptTheirAlgorithm() {
+        ApiGatewayProperties.Security.SigningKey key = new ApiGatewayProperties.Security.SigningKey();
+        key.setKid("rsa");
+        key.setAlgorithm("RS256");
+        key.setPublicKey("-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(FIRST.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----");
+        properties.getSecurity().setKeys(List.of(key));
+        JwtKeyRing ring = ring();
+
+        assertThat(subject(ring, rsaToken("rsa", FIRST.getPrivate(), Jwts.SIG.RS256))).isEqualTo("user");
+        assertThatThrownBy(() -> subject(ring, rsaToken("rsa", FIRST.getPrivate(), Jwts.SIG.RS512)))
+                .isInstanceOf(SignatureException.class)
+                .hasMessageContaining("Unsupported signature algorithm");
+        assertThatThrownBy(() -> subject(ring, rsaToken("rsa", FIRST.getPrivate(), Jwts.SIG.PS256)))
+                .isInstanceOf(SignatureException.class)
+                .hasMessageContaining("Unsupported signature algorithm");
+    }
+
+    @Test
+    void unknownConfiguredAlgorithmFailsAtStartup() {
+        ApiGatewayProperties.Security.SigningKey key = hmacKey("a", SECRET_A);
+        key.setAlgorithm("HS999");
+        properties.getSecurity().setKeys(List.of(key));
+
+        assertThatThrownBy(this::ring).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void jwksKeysOnlyAcceptTheirAlg() throws IOException {
+        writeJwks(jwk("k1", FIRST, "RS256"));
+        JwtKeyRing ring = ring();
+
+        assertThat(subject(ring, rsaToken("k1", FIRST.getPrivate(), Jwts.SIG.RS256))).isEqualTo("user");
+        assertThatThrownBy(() -> subject(ring, rsaToken("k1", FIRST.getPrivate(), Jwts.SIG.PS256)))
+                .isInstanceOf(SignatureException.class)
+                .hasMessageContaining("Unsupported signature algorithm");
+    }
+
+    @Test
+    void jwksKeysForOtherUsesAreIgnored() throws IOException {
+        writeJwks(jwk("enc", SECOND, "RSA-OAEP"), jwk("k1", FIRST, "RS256"));
+        JwtKeyRing ring = ring();
+
+        assertThat(subject(ring, rsaToken("k1", FIRST.getPrivate(), Jwts.SIG.RS256))).isEqualTo("user");
+        assertThatThrownBy(() -> ring.parserFor(rsaToken("enc", SECOND.getPrivate(), Jwts.SIG.RS256)))
+                .isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void rotationSwapsTheRingAndReportsRetiredKids() throws IOException {
+        writeJwks(jwk("k1", FIRST, "RS256"), jwk("k2", SECOND, "RS256"));
+        JwtKeyRing ring = ring();
+        List<Set<String>> notifications = new ArrayList<>();
+        ring.addRotationListener(notifications::add);
+
+        writeJwks(jwk("k2", SECOND, "RS256"), jwk("k3", FIRST, "RS256"));
+        ring.reload();
+
+        assertThat(notifications).containsExactly(Set.of("k1"));
+        assertThat(subject(ring, rsaToken("k3", FIRST.getPrivate(), Jwts.SIG.RS256))).isEqualTo("user");
+        assertThat(subject(ring, rsaToken("k2", SECOND.getPrivate(), Jwts.SIG.RS256))).isEqualTo("user");
+        assertThatThrownBy(() -> ring.parserFor(rsaToken("k1", FIRST.getPrivate(), Jwts.SIG.RS256)))
+                .isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void kidsWithANewKeyOrAlgAreRetired() throws IOException {
+        writeJwks(jwk("k1", FIRST, "RS256"), jwk("k2", SECOND, "RS256"));
+        JwtKeyRing ring = ring();
+        List<Set<String>> notifications = new ArrayList<>();
+        ring.addRotationListener(notifications::add);
+
+        writeJwks(jwk("k1", THIRD, "RS256"), jwk("k2", SECOND, "RS512"));
+        ring.reload();
+        writeJwks(jwk("k1", THIRD, "RS256"), jwk("k2", SECOND, "RS512"));
+        ring.reload();
+
+        assertThat(notifications).containsExactly(Set.of("k1", "k2"), Set.of());
+    }
+
+    @Test
+    void fileThatFailsToLoadKeepsTheCurrentKeys() throws IOException {
+        writeJwks(jwk("k1", FIRST, "RS256"));
+        JwtKeyRing ring = ring();
+        List<Set<String>> notifications = new ArrayList<>();
+        ring.addRotationListener(notifications::add);
+
+        Files.writeString(jwksFile(), "{\"keys\": [");
+        ring.reload();
+
+        assertThat(notifications).isEmpty();
+        assertThat(subject(ring, rsaToken("k1", FIRST.getPrivate(), Jwts.SIG.RS256))).isEqualTo("user");
+    }
+
+    @Test
+    void unreadableFileAtStartupLeavesTheConfiguredKeys() throws IOException {
+        properties.getSecurity().setKeys(List.of(hmacKey("a", SECRET_A)));
+        Files.writeString(jwksFile(), "not json");
+
+        JwtKeyRing ring = ring();
+
+        assertThat(subject(ring, hmacToken("a", SECRET_A))).isEqualTo("user");
+    }
+
+    private JwtKeyRing ring() {
+        return new JwtKeyRing(properties, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    private static String subject(JwtKeyRing ring, String token) {
+        return ring.parserFor(token).parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    private static ApiGatewayProperties.Security.SigningKey hmacKey(String kid, String secret) {
+        ApiGatewayProperties.Security.SigningKey key = new ApiGatewayProperties.Security.SigningKey();
+        key.setKid(kid);
+        key.setSecret(secret);
+        return key;
+    }
+
+    private static String hmacToken(String kid, String secret) {
+        return token(kid, io.jsonwebtoken.security.Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)),
+                Jwts.SIG.HS256);
+    }
+
+    private static String rsaToken(String kid, PrivateKey key, SecureDigestAlgorithm<PrivateKey, ?> algorithm) {
+        return token(kid, key, algorithm);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Key> String token(String kid, K key, SecureDigestAlgorithm<? super K, ?> algorithm) {
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .subject("user")
+                .signWith(key, (SecureDigestAlgorithm<K, ?>) algorithm)
+                .compact();
+    }
+
+    private Path jwksFile() {
+        Path file = directory.resolve("jwks.json");
+        properties.getSecurity().setJwksFile(file.toString());
+        return file;
+    }
+
+    private void writeJwks(String... jwks) throws IOException {
+        Path file = jwksFile();
+        FileTime previous = Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+        Files.writeString(file, "{\"keys\": [" + String.join(",", jwks) + "]}");
+        if (previous != null) {
+            // Coarse file timestamps must still change between versions
+            Files.setLastModifiedTime(file, FileTime.from(previous.toInstant().plusSeconds(1)));
+        }
+    }
+
+    private static String jwk(String kid, KeyPair keyPair, String alg) {
+        RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+        return "{\"kty\":\"RSA\",\"kid\":\"" + kid + "\",\"alg\":\"" + alg + "\",\"n\":\"" + base64Url(key.getModulus())
+                + "\",\"e\":\"" + base64Url(key.getPublicExponent()) + "\"}";
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,154 @@
+package com.nnipa.gateway.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "s".repeat(32);
+    private static final String ROTATED_SECRET = "r".repeat(32);
+    private static final UUID USER = UUID.randomUUID();
+    private static final UUID OTHER_USER = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void servesRepeatedTokensFromTheCache() {
+        JwtUtils jwtUtils = jwtUtils(configuredRing(), Duration.ofMinutes(15));
+        String token = token("a", SECRET, USER, Instant.now().plusSeconds(3600));
+
+        assertThat(jwtUtils.verify(token).getUserId()).isEqualTo(USER);
+        assertThat(jwtUtils.verify(token).getUserId()).isEqualTo(USER);
+
+        assertThat(lookups("miss")).isEqualTo(1);
+        assertThat(lookups("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void entriesExpireWithTheirToken() throws InterruptedException {
+        JwtUtils jwtUtils = jwtUtils(configuredRing(), Duration.ofMinutes(15));
+        // exp has second precision, so give the token at least a full second to live
+        Instant expiresAt = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 2);
+        String token = token("a", SECRET, USER, expiresAt);
+
+        jwtUtils.verify(token);
+        assertThat(jwtUtils.verify(token).getUserId()).isEqualTo(USER);
+        Thread.sleep(Duration.between(Instant.now(), expiresAt).toMillis() + 50);
+
+        assertThatThrownBy(() -> jwtUtils.verify(token)).hasMessage("Token expired");
+    }
+
+    @Test
+    void entriesExpireAtTheMaxTtlBeforeLongLivedTokens() throws InterruptedException {
+        JwtUtils jwtUtils = jwtUtils(configuredRing(), Duration.ofMillis(50));
+        String token = token("a", SECRET, USER, Instant.now().plusSeconds(3600));
+
+        jwtUtils.verify(token);
+        jwtUtils.verify(token);
+        Thread.sleep(100);
+        jwtUtils.verify(token);
+
+        assertThat(lookups("hit")).isEqualTo(1);
+        assertThat(lookups("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void differentTokensNeverShareAnEntry() {
+        JwtUtils jwtUtils = jwtUtils(configuredRing(), Duration.ofMinutes(15));
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        String token = token("a", SECRET, USER, expiresAt);
+        String otherToken = token("a", SECRET, OTHER_USER, expiresAt);
+
+        assertThat(jwtUtils.verify(token).getUserId()).isEqualTo(USER);
+        assertThat(jwtUtils.verify(otherToken).getUserId()).isEqualTo(OTHER_USER);
+        assertThat(jwtUtils.verify(token).getUserId()).isEqualTo(USER);
+
+        // A forged signature on a cached token's claims is verified, not served from the cache
+        String forged = token.substring(0, token.lastIndexOf('.') + 1)
+                + otherToken.substring(otherToken.lastIndexOf('.') + 1);
+        assertThatThrownBy(() -> jwtUtils.verify(forged)).hasMessage("Token validation failed");
+        assertThat(lookups("miss")).isEqualTo(3);
+    }
+
+    @Test
+    void retiringAKidEvictsThePrincipalsItVerified() throws IOException {
+        writeJwks(SECRET);
+        JwtKeyRing ring = new JwtKeyRing(properties, new ObjectMapper(), meterRegistry);
+        JwtUtils jwtUtils = jwtUtils(ring, Duration.ofMinutes(15));
+        String token = token("k1", SECRET, USER, Instant.now().plusSeconds(3600));
+        jwtUtils.verify(token);
+
+        // Rotating without retiring anything keeps the cache
+        writeJwks(SECRET);
+        ring.reload();
+        jwtUtils.verify(token);
+        assertThat(lookups("hit")).isEqualTo(1);
+
+        writeJwks(ROTATED_SECRET);
+        ring.reload();
+        assertThatThrownBy(() -> jwtUtils.verify(token)).hasMessage("Token validation failed");
+        assertThat(lookups("hit")).isEqualTo(1);
+    }
+
+    private JwtKeyRing configuredRing() {
+        ApiGatewayProperties.Security.SigningKey key = new ApiGatewayProperties.Security.SigningKey();
+        key.setKid("a");
+        key.setSecret(SECRET);
+        properties.getSecurity().setKeys(List.of(key));
+        return new JwtKeyRing(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    private JwtUtils jwtUtils(JwtKeyRing ring, Duration maxTtl) {
+        return new JwtUtils(ring, "https://nnipa.cloud", 1000, maxTtl, meterRegistry);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("gateway.auth.claims.cache").tag("result", result).counter().count();
+    }
+
+    private static String token(String kid, String secret, UUID userId, Instant expiresAt) {
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .subject(userId.toString())
+                .claim("userId", userId.toString())
+                .claim("tenantId", UUID.randomUUID().toString())
+                .expiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    private void writeJwks(String secret) throws IOException {
+        Path file = directory.resolve("jwks.json");
+        properties.getSecurity().setJwksFile(file.toString());
+        FileTime previous = Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+        String k = Base64.getUrlEncoder().withoutPadding().encodeToString(secret.getBytes(StandardCharsets.UTF_8));
+        Files.writeString(file, "{\"keys\": [{\"kty\":\"oct\",\"kid\":\"k1\",\"alg\":\"HS256\",\"k\":\"" + k + "\"}]}");
+        if (previous != null) {
+            Files.setLastModifiedTime(file, FileTime.from(previous.toInstant().plusSeconds(1)));
+        }
+    }
+}
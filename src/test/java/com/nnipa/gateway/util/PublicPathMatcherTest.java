@@ -0,0 +1,98 @@
+package com.nnipa.gateway.util;
+
+import com.nnipa.gateway.config.ApiGatewayProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicPathMatcherTest {
+
+    private final ApiGatewayProperties properties = new ApiGatewayProperties();
+    private final PublicPathMatcher matcher = new PublicPathMatcher(properties);
+
+    @Test
+    void exactPathMatchesOnlyItself() {
+        properties.getSecurity().setPublicPaths(List.of("/api/v1/auth/login"));
+
+        assertThat(matcher.isPublicPath("/api/v1/auth/login")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v1/auth/login/")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v1/auth")).isFalse();
+        assertThat(matcher.isPublicPath("/api/v1/auth/login/extra")).isFalse();
+        assertThat(matcher.isPublicPath("/api/v1/auth/logout")).isFalse();
+    }
+
+    @Test
+    void trailingDoubleWildcardMatchesPrefixAndEverythingBelow() {
+        properties.getSecurity().setPublicPaths(List.of("/swagger-ui/**"));
+
+        assertThat(matcher.isPublicPath("/swagger-ui")).isTrue();
+        assertThat(matcher.isPublicPath("/swagger-ui/index.html")).isTrue();
+        assertThat(matcher.isPublicPath("/swagger-ui/a/b/c")).isTrue();
+        assertThat(matcher.isPublicPath("/swagger-uix/index.html")).isFalse();
+        assertThat(matcher.isPublicPath("/api/swagger-ui/index.html")).isFalse();
+    }
+
+    @Test
+    void singleWildcardMatchesExactlyOneSegment() {
+        properties.getSecurity().setPublicPaths(List.of("/api/*/health"));
+
+        assertThat(matcher.isPublicPath("/api/tenants/health")).isTrue();
+        assertThat(matcher.isPublicPath("/api/health")).isFalse();
+        assertThat(matcher.isPublicPath("/api/a/b/health")).isFalse();
+    }
+
+    @Test
+    void innerDoubleWildcardStillRequiresTheRestOfThePattern() {
+        properties.getSecurity().setPublicPaths(List.of("/api/**/public"));
+
+        assertThat(matcher.isPublicPath("/api/public")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v1/public")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v1/tenants/public")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v1/tenants")).isFalse();
+        assertThat(matcher.isPublicPath("/api/v1/public/secret")).isFalse();
+        assertThat(matcher.isPublicPath("/api")).isFalse();
+    }
+
+    @Test
+    void innerDoubleWildcardCombinesWithOtherWildcards() {
+        properties.getSecurity().setPublicPaths(List.of("/**/docs/*", "/api/**/v3/**"));
+
+        assertThat(matcher.isPublicPath("/docs/index.html")).isTrue();
+        assertThat(matcher.isPublicPath("/tenant/v1/docs/index.html")).isTrue();
+        assertThat(matcher.isPublicPath("/tenant/v1/docs")).isFalse();
+        assertThat(matcher.isPublicPath("/api/users/v3")).isTrue();
+        assertThat(matcher.isPublicPath("/api/users/v3/api-docs/swagger-config")).isTrue();
+        assertThat(matcher.isPublicPath("/api/users/v2/api-docs")).isFalse();
+    }
+
+    @Test
+    void literalAndWildcardBranchesAreBothTried() {
+        properties.getSecurity().setPublicPaths(List.of("/api/v1/status", "/api/*/docs/**"));
+
+        assertThat(matcher.isPublicPath("/api/v1/docs/index.html")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v1/status")).isTrue();
+        assertThat(matcher.isPublicPath("/api/v2/status")).isFalse();
+    }
+
+    @Test
+    void nullAndUnmatchedPathsAreNotPublic() {
+        properties.getSecurity().setPublicPaths(List.of("/actuator/health"));
+
+        assertThat(matcher.isPublicPath(null)).isFalse();
+        assertThat(matcher.isPublicPath("/")).isFalse();
+        assertThat(matcher.isPublicPath("/actuator/prometheus")).isFalse();
+    }
+
+    @Test
+    void replacedPatternListIsRecompiled() {
+        properties.getSecurity().setPublicPaths(List.of("/old/**"));
+        assertThat(matcher.isPublicPath("/old/path")).isTrue();
+
+        properties.getSecurity().setPublicPaths(List.of("/new/**"));
+
+        assertThat(matcher.isPublicPath("/old/path")).isFalse();
+        assertThat(matcher.isPublicPath("/new/path")).isTrue();
+    }
+}